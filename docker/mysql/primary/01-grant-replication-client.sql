@@ -0,0 +1,2 @@
+-- Lets the app run SHOW REPLICA STATUS on replicas to check lag, replicated along with the user itself
+GRANT REPLICATION CLIENT ON *.* TO 'library_user'@'%';
@@ -0,0 +1,14 @@
+#!/bin/bash
+# Replicates everything from the primary, including the app database and user, using GTID auto-positioning
+set -e
+
+mysql -uroot -p"${MYSQL_ROOT_PASSWORD}" <<-EOSQL
+    CHANGE REPLICATION SOURCE TO
+        SOURCE_HOST='db',
+        SOURCE_PORT=3306,
+        SOURCE_USER='root',
+        SOURCE_PASSWORD='${MYSQL_ROOT_PASSWORD}',
+        SOURCE_AUTO_POSITION=1,
+        GET_SOURCE_PUBLIC_KEY=1;
+    START REPLICA;
+EOSQL
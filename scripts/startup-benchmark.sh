@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Measures the time from launching the JVM to the first successful borrow, against in-memory H2.
+#
+# usage: scripts/startup-benchmark.sh <runs> <java arguments...>
+#   scripts/startup-benchmark.sh 5 -jar target/library-system-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh 5 -XX:SharedArchiveFile=target/extracted/app.jsa -Dspring.aot.enabled=true \
+#       -jar target/extracted/library-system-0.0.1-SNAPSHOT.jar
+#
+# Prints one line per run and the median in milliseconds. PORT overrides the port used (default 18080).
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "usage: $0 <runs> <java arguments...>" >&2
+  exit 1
+fi
+
+RUNS=$1
+shift
+PORT=${PORT:-18080}
+BASE_URL="http://localhost:$PORT/api"
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+post() {
+  curl -sf -o /dev/null -X POST -H 'Content-Type: application/json' "$BASE_URL$1" ${2:+-d "$2"}
+}
+
+times=()
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  SPRING_DATASOURCE_URL="jdbc:h2:mem:startup;MODE=MySQL" SPRING_DATASOURCE_USERNAME=sa SPRING_DATASOURCE_PASSWORD= \
+    java "$@" --server.port="$PORT" --spring.jpa.hibernate.ddl-auto=create --spring.jpa.show-sql=false \
+    > "$LOG" 2>&1 &
+  pid=$!
+
+  until post /borrowers '{"name":"Startup","email":"startup@example.com"}'; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      cat "$LOG" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  post /books '{"isbn":"978-0-13-235088-4","title":"Clean Code","author":"Robert C. Martin"}'
+  post /borrowers/1/borrow/1
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+
+  kill "$pid"
+  wait "$pid" || true
+  times+=("$elapsed")
+  echo "run $run: $elapsed ms"
+done
+
+sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+echo "median: ${sorted[$(( RUNS / 2 ))]} ms"
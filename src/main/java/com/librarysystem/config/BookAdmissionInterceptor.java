@@ -0,0 +1,62 @@
+package com.librarysystem.config;
+
+import com.librarysystem.service.BookAdmissionQueue;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Holds the {@link BookAdmissionQueue} turn of the book in the path for the whole borrow or return request, from
+ * before it takes a connection until the response is written.
+ */
+@Component
+public class BookAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_BOOK_ATTRIBUTE = BookAdmissionInterceptor.class.getName() + ".bookId";
+
+    private final ObjectProvider<BookAdmissionQueue> admissionQueue;
+
+    public BookAdmissionInterceptor(ObjectProvider<BookAdmissionQueue> admissionQueue) {
+        this.admissionQueue = admissionQueue;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        BookAdmissionQueue queue = admissionQueue.getIfAvailable();
+        Long bookId = bookId(request);
+        if (queue == null || bookId == null) {
+            return true;
+        }
+
+        queue.acquire(bookId);
+        request.setAttribute(ADMITTED_BOOK_ATTRIBUTE, bookId);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED_BOOK_ATTRIBUTE) instanceof Long bookId) {
+            request.removeAttribute(ADMITTED_BOOK_ATTRIBUTE);
+            admissionQueue.getObject().release(bookId);
+        }
+    }
+
+    // Non-numeric ids are left for the controller to reject
+    private static Long bookId(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map) || !(map.get("bookId") instanceof String value)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.librarysystem.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CirculationProperties.class)
+public class CirculationConfig {
+}
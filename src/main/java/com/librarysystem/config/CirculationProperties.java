@@ -0,0 +1,33 @@
+package com.librarysystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the circulation engines picked by {@code library.circulation.mode}, {@code journal} or
+ * {@code group-commit}. Not read in the default {@code database} mode.
+ *
+ * @param journalPath       file the engine journals borrows and returns to, created if missing
+ * @param journalSize       size of the mapped journal, a ring whose slots are reused once their records are replicated,
+ *                          commands are rejected with 503 when replication falls this far behind (56 bytes per record)
+ * @param journalForce      whether each batch is forced to disk before it is acknowledged, off only survives a process crash
+ * @param queueCapacity     commands waiting for the writer or dispatcher thread before new ones are rejected with 503
+ * @param batchSize         most commands the writer applies per journal force, and records replicated per transaction
+ * @param timeout           how long a request waits for its command to be journaled or committed before it gets a 503
+ * @param groupCommitWindow how long the group-commit dispatcher waits for more commands after the first one
+ * @param groupCommitSize   most commands committed in one group-commit transaction
+ */
+@ConfigurationProperties("library.circulation")
+public record CirculationProperties(@DefaultValue("data/circulation.journal") Path journalPath,
+                                    @DefaultValue("64MB") DataSize journalSize,
+                                    @DefaultValue("true") boolean journalForce,
+                                    @DefaultValue("65536") int queueCapacity,
+                                    @DefaultValue("1000") int batchSize,
+                                    @DefaultValue("5s") Duration timeout,
+                                    @DefaultValue("2ms") Duration groupCommitWindow,
+                                    @DefaultValue("50") int groupCommitSize) {
+}
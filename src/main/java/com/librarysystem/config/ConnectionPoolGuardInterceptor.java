@@ -0,0 +1,53 @@
+package com.librarysystem.config;
+
+import com.librarysystem.exception.ServiceUnavailableException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Rejects requests with 503 while too many threads are already waiting for a pooled connection, instead of
+ * letting more Tomcat threads queue on the pool until they hit the connection timeout.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolGuardInterceptor implements HandlerInterceptor {
+
+    private final ObjectProvider<HikariDataSource> dataSource;
+    private final int maxPendingThreads;
+    private final Duration retryAfter;
+
+    public ConnectionPoolGuardInterceptor(ObjectProvider<HikariDataSource> dataSource,
+                                          @Value("${library.datasource.pool-guard.max-pending-threads:10}") int maxPendingThreads,
+                                          @Value("${library.datasource.pool-guard.retry-after:1s}") Duration retryAfter) {
+        this.dataSource = dataSource;
+        this.maxPendingThreads = maxPendingThreads;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HikariDataSource pool = dataSource.getIfUnique();
+        HikariPoolMXBean poolBean = pool != null ? pool.getHikariPoolMXBean() : null;
+        if (poolBean == null) {
+            return true;
+        }
+
+        int pending = poolBean.getThreadsAwaitingConnection();
+        if (pending > maxPendingThreads) {
+            log.warn("Rejecting {} with {} threads waiting for a connection, limit is {}",
+                    request.getRequestURI(), pending, maxPendingThreads);
+            throw new ServiceUnavailableException("Service is busy, please retry", retryAfter);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.librarysystem.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflective getter and setter calls with generated lambdas. Registered on both the JSON and the
+     * CBOR mapper, since Spring Boot adds every {@link JacksonModule} bean to each of them.
+     */
+    @Bean
+    public JacksonModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.librarysystem.config;
+
+import com.librarysystem.entity.enums.BorrowerCategory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Loan limits per borrower category.
+ *
+ * @param maxActive how many loans a borrower of each category may have active at once, every category must be set
+ */
+@ConfigurationProperties("library.loans.limits")
+public record LoanLimitProperties(Map<BorrowerCategory, Integer> maxActive) {
+
+    public LoanLimitProperties {
+        for (BorrowerCategory category : BorrowerCategory.values()) {
+            Integer limit = maxActive == null ? null : maxActive.get(category);
+            if (limit == null || limit < 1) {
+                throw new IllegalStateException("library.loans.limits.max-active." + category + " must be at least 1");
+            }
+        }
+        maxActive = Map.copyOf(maxActive);
+    }
+
+    public int maxActiveFor(BorrowerCategory category) {
+        return maxActive.get(category);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.librarysystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas used for {@code @Transactional(readOnly = true)} work.
+ *
+ * @param lagQuery query run on each replica to read its lag in seconds, either a single numeric column or
+ *                 MySQL's {@code SHOW REPLICA STATUS}. Lag is not checked when empty.
+ */
+@ConfigurationProperties("library.datasource.replicas")
+public record ReplicaDataSourceProperties(
+        boolean enabled,
+        List<String> urls,
+        String username,
+        String password,
+        String lagQuery,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("5s") Duration healthCheckInterval
+) {
+}
@@ -0,0 +1,155 @@
+package com.librarysystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from healthy replicas in round-robin order, falling back to the primary when no
+ * replica is healthy or the chosen one fails to connect.
+ * <p>
+ * A replica is healthy when it accepts connections and, if a lag query is configured, is no more than
+ * {@code maxLag} behind the primary. Health is refreshed on a fixed schedule, never on the request path, and
+ * replicas stay out of rotation until their first successful check.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final String MYSQL_LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<HikariDataSource> healthyReplicas = List.of();
+    // Replicas that failed to connect while a health check was running, guarded by this
+    private final Set<HikariDataSource> failedDuringCheck = new HashSet<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, String lagQuery, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        List<HikariDataSource> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return primary.getConnection();
+        }
+
+        HikariDataSource replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        try {
+            return replica.getConnection();
+        } catch (SQLException ex) {
+            log.warn("Replica {} failed to connect, falling back to primary", replica.getPoolName(), ex);
+            markUnhealthy(replica);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Same as HikariDataSource, the pools are opened with the configured credentials
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${library.datasource.replicas.health-check-interval:5s}")
+    public void checkHealth() {
+        synchronized (this) {
+            failedDuringCheck.clear();
+        }
+
+        List<HikariDataSource> healthy = new ArrayList<>(replicas.size());
+        for (HikariDataSource replica : replicas) {
+            boolean wasHealthy = healthyReplicas.contains(replica);
+            boolean isHealthy = isHealthy(replica);
+            if (isHealthy) {
+                healthy.add(replica);
+            }
+            if (wasHealthy != isHealthy) {
+                log.info("Replica {} is now {}", replica.getPoolName(), isHealthy ? "healthy" : "unhealthy");
+            }
+        }
+        publishHealthy(healthy);
+    }
+
+    // Under the same lock as markUnhealthy, and without a replica that failed after it was checked
+    private synchronized void publishHealthy(List<HikariDataSource> healthy) {
+        healthy.removeAll(failedDuringCheck);
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    private boolean isHealthy(HikariDataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(2)) {
+                return false;
+            }
+            if (!StringUtils.hasText(lagQuery)) {
+                return true;
+            }
+
+            Long lagSeconds = readLagSeconds(connection);
+            if (lagSeconds == null || lagSeconds > maxLag.toSeconds()) {
+                log.warn("Replica {} lag is {}s, max allowed is {}s", replica.getPoolName(), lagSeconds, maxLag.toSeconds());
+                return false;
+            }
+            return true;
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Health check failed for replica {}: {}", replica.getPoolName(), ex.getMessage());
+            return false;
+        }
+    }
+
+    // null means replication is not running
+    private Long readLagSeconds(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return null;
+            }
+
+            int column = 1;
+            for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+                if (MYSQL_LAG_COLUMN.equalsIgnoreCase(resultSet.getMetaData().getColumnLabel(i))) {
+                    column = i;
+                }
+            }
+
+            long lag = resultSet.getLong(column);
+            return resultSet.wasNull() ? null : lag;
+        }
+    }
+
+    private synchronized void markUnhealthy(HikariDataSource replica) {
+        List<HikariDataSource> healthy = new ArrayList<>(healthyReplicas);
+        healthy.remove(replica);
+        healthyReplicas = List.copyOf(healthy);
+        failedDuringCheck.add(replica);
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.librarysystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(SchemaMigrationProperties.class)
+public class SchemaMigrationConfig {
+
+    @Bean
+    public SchemaMigrator schemaMigrator(DataSource dataSource, SchemaMigrationProperties properties,
+                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new SchemaMigrator(dataSource, properties, ddlAuto);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.librarysystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Versioned schema migrations in {@code db/migration}, see {@link SchemaMigrator}.
+ *
+ * @param baselineVersion version a database created before migrations is marked as already having, e.g. 7 for
+ *                        one a release up to the loan limits created or updated with {@code ddl-auto=update}
+ */
+@ConfigurationProperties("library.schema.migrations")
+public record SchemaMigrationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1") int baselineVersion
+) {
+}
@@ -0,0 +1,163 @@
+package com.librarysystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the scripts in {@code db/migration} that the database has not run yet, before Hibernate validates the
+ * schema against the entities.
+ * <p>
+ * Scripts are named {@code V<version>__<description>.sql} and run in version order, each recorded in
+ * {@code schema_version} once all of its statements succeed. MySQL commits DDL as it goes, so a script that fails
+ * halfway stops startup and has to be finished by hand before the next start. A database that has {@code books}
+ * but no {@code schema_version} was created before migrations, so it is marked as already having every version
+ * up to {@link SchemaMigrationProperties#baselineVersion()}.
+ * <p>
+ * Skipped when Hibernate creates the schema itself ({@code ddl-auto} {@code create} or {@code create-drop}, as the
+ * tests and the CDS training run do) or with {@code library.schema.migrations.enabled=false}.
+ */
+@Slf4j
+public class SchemaMigrator implements InitializingBean {
+
+    static final String LOCATION = "classpath:db/migration/V*__*.sql";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Set<String> HIBERNATE_CREATES = Set.of("create", "create-drop", "create-only");
+
+    private final DataSource dataSource;
+    private final SchemaMigrationProperties properties;
+    private final String ddlAuto;
+
+    public SchemaMigrator(DataSource dataSource, SchemaMigrationProperties properties, String ddlAuto) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException, IOException {
+        if (!properties.enabled() || HIBERNATE_CREATES.contains(ddlAuto)) {
+            return;
+        }
+        migrate();
+    }
+
+    /**
+     * Runs the pending scripts.
+     *
+     * @return the versions applied, empty when the schema was already up to date
+     */
+    public List<Integer> migrate() throws SQLException, IOException {
+        List<Migration> migrations = findMigrations();
+        List<Integer> applied = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            Set<Integer> installed = installedVersions(connection);
+
+            for (Migration migration : migrations) {
+                if (installed.contains(migration.version())) {
+                    continue;
+                }
+                log.info("Applying schema migration {}", migration.resource().getFilename());
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource(), StandardCharsets.UTF_8));
+                record(connection, migration.version(), migration.description());
+                applied.add(migration.version());
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            log.info("Applied schema migrations {}", applied);
+        }
+        return applied;
+    }
+
+    private Set<Integer> installedVersions(Connection connection) throws SQLException {
+        if (!tableExists(connection, "schema_version")) {
+            boolean existing = tableExists(connection, "books");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table schema_version (" +
+                        "version integer not null, " +
+                        "description varchar(200) not null, " +
+                        "installed_at datetime(6) not null, " +
+                        "primary key (version)) engine=InnoDB");
+            }
+            if (existing) {
+                log.info("Existing schema without schema_version, marking it as version {}", properties.baselineVersion());
+                for (int version = 1; version <= properties.baselineVersion(); version++) {
+                    record(connection, version, "baseline");
+                }
+            }
+        }
+
+        Set<Integer> versions = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static void record(Connection connection, int version, String description) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, installed_at) VALUES (?, ?, ?)")) {
+            statement.setInt(1, version);
+            statement.setString(2, description);
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        // MySQL reports table names as created, H2 upper-cases unquoted ones
+        for (String name : List.of(table, table.toUpperCase())) {
+            try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Migration> findMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Migration " + resource.getFilename() + " is not named V<version>__<description>.sql");
+            }
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2), resource));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private record Migration(int version, String description, Resource resource) {
+    }
+
+}
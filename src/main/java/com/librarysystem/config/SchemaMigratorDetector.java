@@ -0,0 +1,18 @@
+package com.librarysystem.config;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * Makes the {@code EntityManagerFactory}, {@code JdbcTemplate}s and everything else Spring Boot knows to use the
+ * database wait for {@link SchemaMigrator}. Registered in {@code META-INF/spring.factories}.
+ */
+public class SchemaMigratorDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrator.class);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.librarysystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConnectionPoolGuardInterceptor connectionPoolGuardInterceptor;
+    private final BookAdmissionInterceptor bookAdmissionInterceptor;
+    private final CBORMapper cborMapper;
+    private final boolean bookAdmissionEnabled;
+
+    public WebConfig(ConnectionPoolGuardInterceptor connectionPoolGuardInterceptor,
+                     BookAdmissionInterceptor bookAdmissionInterceptor,
+                     CBORMapper cborMapper,
+                     @Value("${library.loans.admission.enabled:true}") boolean bookAdmissionEnabled) {
+        this.connectionPoolGuardInterceptor = connectionPoolGuardInterceptor;
+        this.bookAdmissionInterceptor = bookAdmissionInterceptor;
+        this.cborMapper = cborMapper;
+        this.bookAdmissionEnabled = bookAdmissionEnabled;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(connectionPoolGuardInterceptor)
+                .addPathPatterns("/api/borrowers/*/borrow/*");
+        // After the pool guard, a request it rejects never waits for its book
+        if (bookAdmissionEnabled) {
+            registry.addInterceptor(bookAdmissionInterceptor)
+                    .addPathPatterns("/api/borrowers/*/borrow/*", "/api/borrowers/*/return/*");
+        }
+    }
+
+    // Clients sending Accept: application/cbor get CBOR from the Spring Boot configured mapper, JSON stays the default
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter(cborMapper));
+    }
+
+}
@@ -1,9 +1,13 @@
 package com.librarysystem.controller;
 
+import com.librarysystem.dto.request.BookFilter;
 import com.librarysystem.dto.request.CreateBookRequest;
 import com.librarysystem.dto.response.BookResponse;
+import com.librarysystem.entity.enums.BookStatus;
 import com.librarysystem.exception.dto.ErrorResponse;
 import com.librarysystem.service.BookService;
+import com.librarysystem.service.CatalogVersion;
+import com.librarysystem.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,11 +18,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
@@ -26,9 +32,14 @@ import java.net.URI;
 public class BookController {
 
     private final BookService bookService;
+    private final IdempotencyService idempotencyService;
+    private final CatalogVersion catalogVersion;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, IdempotencyService idempotencyService,
+                          CatalogVersion catalogVersion) {
         this.bookService = bookService;
+        this.idempotencyService = idempotencyService;
+        this.catalogVersion = catalogVersion;
     }
 
     @PostMapping
@@ -45,26 +56,92 @@ public class BookController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
-    public ResponseEntity<BookResponse> createBook(@Valid @RequestBody CreateBookRequest request) {
-        BookResponse response = bookService.createBook(request);
+    public ResponseEntity<BookResponse> createBook(@Valid @RequestBody CreateBookRequest request,
+                                                   @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        BookResponse response = idempotencyKey == null
+                ? bookService.createBook(request)
+                : idempotencyService.execute(idempotencyKey, "POST /api/books " + request, BookResponse.class,
+                        () -> bookService.createBook(request));
         URI location = URI.create("/api/books/" + response.getId());
         return ResponseEntity.created(location).body(response);
     }
 
     @GetMapping
-    @Operation(summary = "Get all books")
+    @Operation(summary = "Get books, optionally filtered by status, author, ISBN or title prefix")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "List of books",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = BookResponse.class)))
+            ),
+            @ApiResponse(responseCode = "304", description = "Catalog unchanged since the If-None-Match ETag"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid ISBN, or a sort the filters cannot be read in",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
     public ResponseEntity<Page<BookResponse>> getBooks(@RequestParam(defaultValue = "0") int page,
-                                                       @RequestParam(defaultValue = "20") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<BookResponse> books = bookService.getBooks(pageable);
-        return ResponseEntity.ok(books);
+                                                       @RequestParam(defaultValue = "20") int size,
+                                                       @RequestParam(required = false) BookStatus status,
+                                                       @RequestParam(required = false) String author,
+                                                       @RequestParam(required = false) String isbn,
+                                                       @RequestParam(required = false) String titlePrefix,
+                                                       @RequestParam(required = false) BookService.SortBy sort,
+                                                       WebRequest webRequest) {
+        String etag = catalogVersion.etag();
+        if (webRequest.checkNotModified(etag)) {
+            // 304 with the ETag header already set, nothing is read from the DB
+            return null;
+        }
+
+        BookFilter filter = BookFilter.builder()
+                .status(status)
+                .author(author)
+                .isbn(isbn)
+                .titlePrefix(titlePrefix)
+                .build();
+        Page<BookResponse> books = bookService.getBooks(filter, sort, PageRequest.of(page, size));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(books);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a book by id")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Book found",
+                    content = @Content(schema = @Schema(implementation = BookResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Book not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<BookResponse> getBook(@PathVariable Long id) {
+        return ResponseEntity.ok(bookService.getBook(id));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several books by id")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Books found, in the order of ids, unknown ids are left out",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BookResponse.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Too many ids",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<BookResponse>> getBooksByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(bookService.getBooksByIds(ids));
     }
 
 }
@@ -2,8 +2,11 @@ package com.librarysystem.controller;
 
 import com.librarysystem.dto.request.CreateBorrowerRequest;
 import com.librarysystem.dto.response.BorrowerResponse;
+import com.librarysystem.dto.response.BulkEnrollmentResponse;
 import com.librarysystem.exception.dto.ErrorResponse;
+import com.librarysystem.service.BorrowerEnrollmentService;
 import com.librarysystem.service.BorrowerService;
+import com.librarysystem.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,12 +14,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.net.URI;
 
 @RestController
@@ -24,10 +31,17 @@ import java.net.URI;
 @Tag(name = "Borrowers", description = "Operations related to library borrowers")
 public class BorrowerController {
 
+    private static final String TEXT_CSV = "text/csv";
+
     private final BorrowerService borrowerService;
+    private final BorrowerEnrollmentService borrowerEnrollmentService;
+    private final IdempotencyService idempotencyService;
 
-    public BorrowerController(BorrowerService borrowerService) {
+    public BorrowerController(BorrowerService borrowerService, BorrowerEnrollmentService borrowerEnrollmentService,
+                              IdempotencyService idempotencyService) {
         this.borrowerService = borrowerService;
+        this.borrowerEnrollmentService = borrowerEnrollmentService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping
@@ -49,9 +63,32 @@ public class BorrowerController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
     })
-    public ResponseEntity<BorrowerResponse> createBorrower(@Valid @RequestBody CreateBorrowerRequest request) {
-        BorrowerResponse response = borrowerService.createBorrower(request);
+    public ResponseEntity<BorrowerResponse> createBorrower(@Valid @RequestBody CreateBorrowerRequest request,
+                                                           @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        BorrowerResponse response = idempotencyKey == null
+                ? borrowerService.createBorrower(request)
+                : idempotencyService.execute(idempotencyKey, "POST /api/borrowers " + request, BorrowerResponse.class,
+                        () -> borrowerService.createBorrower(request));
         URI location = URI.create("/api/borrowers/" + response.getId());
         return ResponseEntity.created(location).body(response);
     }
+
+    @PostMapping(value = "/bulk", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Register many borrowers from a CSV (name,email) or NDJSON body")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Per-row enrollment report",
+                    content = @Content(schema = @Schema(implementation = BulkEnrollmentResponse.class))
+            )
+    })
+    public ResponseEntity<BulkEnrollmentResponse> enrollBorrowers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                  InputStream body) {
+        BorrowerEnrollmentService.Format format = MediaType.APPLICATION_NDJSON.includes(MediaType.parseMediaType(contentType))
+                ? BorrowerEnrollmentService.Format.NDJSON
+                : BorrowerEnrollmentService.Format.CSV;
+
+        BulkEnrollmentResponse response = borrowerEnrollmentService.enroll(body, format);
+        return ResponseEntity.ok(response);
+    }
 }
@@ -2,17 +2,25 @@ package com.librarysystem.controller;
 
 import com.librarysystem.dto.response.LoanResponse;
 import com.librarysystem.exception.dto.ErrorResponse;
-import com.librarysystem.service.LoanService;
+import com.librarysystem.service.CirculationService;
+import com.librarysystem.service.IdempotencyService;
+import com.librarysystem.service.LoanHistoryService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -20,10 +28,15 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Loans", description = "Operations related to borrowing and returning books")
 public class LoanController {
 
-    private final LoanService loanService;
+    private final CirculationService circulationService;
+    private final IdempotencyService idempotencyService;
+    private final LoanHistoryService loanHistoryService;
 
-    public LoanController(LoanService loanService) {
-        this.loanService = loanService;
+    public LoanController(CirculationService circulationService, IdempotencyService idempotencyService,
+                          LoanHistoryService loanHistoryService) {
+        this.circulationService = circulationService;
+        this.idempotencyService = idempotencyService;
+        this.loanHistoryService = loanHistoryService;
     }
 
     @PostMapping("/borrowers/{borrowerId}/borrow/{bookId}")
@@ -45,8 +58,12 @@ public class LoanController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
     })
-    public ResponseEntity<LoanResponse> borrowBook(@PathVariable Long borrowerId, @PathVariable Long bookId) {
-        LoanResponse response = loanService.borrowBook(borrowerId, bookId);
+    public ResponseEntity<LoanResponse> borrowBook(@PathVariable Long borrowerId, @PathVariable Long bookId,
+                                                   @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        LoanResponse response = idempotencyKey == null
+                ? circulationService.borrowBook(borrowerId, bookId)
+                : idempotencyService.execute(idempotencyKey, "POST /api/borrowers/" + borrowerId + "/borrow/" + bookId, LoanResponse.class,
+                        () -> circulationService.borrowBook(borrowerId, bookId));
         return ResponseEntity.ok(response);
     }
 
@@ -69,9 +86,55 @@ public class LoanController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
-    public ResponseEntity<LoanResponse> returnBook(@PathVariable Long borrowerId, @PathVariable Long bookId) {
-        LoanResponse response = loanService.returnBook(borrowerId, bookId);
+    public ResponseEntity<LoanResponse> returnBook(@PathVariable Long borrowerId, @PathVariable Long bookId,
+                                                   @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        LoanResponse response = idempotencyKey == null
+                ? circulationService.returnBook(borrowerId, bookId)
+                : idempotencyService.execute(idempotencyKey, "POST /api/borrowers/" + borrowerId + "/return/" + bookId, LoanResponse.class,
+                        () -> circulationService.returnBook(borrowerId, bookId));
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/borrowers/{borrowerId}/loans")
+    @Operation(summary = "Get the loan history of a borrower, newest first")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Loans of the borrower",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = LoanResponse.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Borrower not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Page<LoanResponse>> getBorrowerLoans(@PathVariable Long borrowerId,
+                                                               @RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        Page<LoanResponse> loans = loanHistoryService.getBorrowerLoans(borrowerId, PageRequest.of(page, size));
+        return ResponseEntity.ok(loans);
+    }
+
+    @GetMapping("/books/{bookId}/loans")
+    @Operation(summary = "Get the loan history of a book copy, newest first")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Loans of the book",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = LoanResponse.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Book not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Page<LoanResponse>> getBookLoans(@PathVariable Long bookId,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        Page<LoanResponse> loans = loanHistoryService.getBookLoans(bookId, PageRequest.of(page, size));
+        return ResponseEntity.ok(loans);
+    }
+
 }
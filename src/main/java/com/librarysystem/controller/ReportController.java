@@ -0,0 +1,57 @@
+package com.librarysystem.controller;
+
+import com.librarysystem.dto.response.CirculationStatResponse;
+import com.librarysystem.entity.enums.StatDimension;
+import com.librarysystem.exception.dto.ErrorResponse;
+import com.librarysystem.service.CirculationReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@Tag(name = "Reports", description = "Circulation reports for management")
+public class ReportController {
+
+    private final CirculationReportService circulationReportService;
+
+    public ReportController(CirculationReportService circulationReportService) {
+        this.circulationReportService = circulationReportService;
+    }
+
+    @GetMapping("/circulation")
+    @Operation(summary = "Get borrows and returns per ISBN, author or borrower over a date range")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Circulation counts, most borrowed first",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CirculationStatResponse.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid date range or limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<CirculationStatResponse>> getCirculation(
+            @RequestParam StatDimension by,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(circulationReportService.getCirculation(by, from, to, limit));
+    }
+
+}
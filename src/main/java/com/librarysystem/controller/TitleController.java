@@ -0,0 +1,51 @@
+package com.librarysystem.controller;
+
+import com.librarysystem.dto.response.TrendingTitleResponse;
+import com.librarysystem.exception.dto.ErrorResponse;
+import com.librarysystem.service.TrendingTitles;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/titles")
+@Tag(name = "Titles", description = "Operations on titles across all their copies")
+public class TitleController {
+
+    private final TrendingTitles trendingTitles;
+
+    public TitleController(TrendingTitles trendingTitles) {
+        this.trendingTitles = trendingTitles;
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Get the most borrowed titles over the last hour, day or week")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Most borrowed titles first",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = TrendingTitleResponse.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid n",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<TrendingTitleResponse>> getTrending(@RequestParam(defaultValue = "10") int n,
+                                                                   @RequestParam(defaultValue = "DAY") TrendingTitles.Window window) {
+        return ResponseEntity.ok(trendingTitles.top(window, n));
+    }
+
+}
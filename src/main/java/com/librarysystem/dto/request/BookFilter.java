@@ -0,0 +1,28 @@
+package com.librarysystem.dto.request;
+
+import com.librarysystem.entity.enums.BookStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters of {@code GET /api/books}, all optional and combined with AND.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookFilter {
+
+    private BookStatus status;
+
+    // Exact match
+    private String author;
+
+    // ISBN-10 or ISBN-13, with or without hyphens
+    private String isbn;
+
+    private String titlePrefix;
+
+}
@@ -1,7 +1,9 @@
 package com.librarysystem.dto.request;
 
+import com.librarysystem.entity.enums.BorrowerCategory;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,11 +15,17 @@ import lombok.NoArgsConstructor;
 @Builder
 public class CreateBorrowerRequest {
 
+    // Lengths of the borrowers columns, so a longer value is a 400 instead of a failed insert
     @NotBlank(message = "Name is required")
+    @Size(max = 255, message = "Name must be at most 255 characters")
     private String name;
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email must be valid")
+    @Size(max = 255, message = "Email must be at most 255 characters")
     private String email;
 
+    // Optional, STANDARD when not given
+    private BorrowerCategory category;
+
 }
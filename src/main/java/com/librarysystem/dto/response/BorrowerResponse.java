@@ -1,5 +1,6 @@
 package com.librarysystem.dto.response;
 
+import com.librarysystem.entity.enums.BorrowerCategory;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +15,6 @@ public class BorrowerResponse {
     private Long id;
     private String name;
     private String email;
+    private BorrowerCategory category;
 
 }
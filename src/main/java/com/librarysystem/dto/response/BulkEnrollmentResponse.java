@@ -0,0 +1,22 @@
+package com.librarysystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkEnrollmentResponse {
+
+    private int totalRows;
+    private int created;
+    private int rejected;
+
+    private List<BulkEnrollmentRowResult> rows;
+
+}
@@ -0,0 +1,27 @@
+package com.librarysystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkEnrollmentRowResult {
+
+    private int row;
+    private String email;
+    private Status status;
+    private Long borrowerId;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE_IN_BATCH,
+        EMAIL_TAKEN
+    }
+
+}
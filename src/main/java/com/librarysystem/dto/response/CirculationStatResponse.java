@@ -0,0 +1,20 @@
+package com.librarysystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CirculationStatResponse {
+
+    // ISBN, author name or borrower id, depending on the report
+    private String key;
+
+    private long borrows;
+    private long returns;
+
+}
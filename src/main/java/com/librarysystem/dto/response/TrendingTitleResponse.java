@@ -0,0 +1,21 @@
+package com.librarysystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingTitleResponse {
+
+    private String isbn;
+    private String title;
+    private String author;
+
+    // Estimated, can be slightly higher than the real number of borrows
+    private long borrows;
+
+}
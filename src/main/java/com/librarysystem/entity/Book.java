@@ -3,9 +3,20 @@ package com.librarysystem.entity;
 import com.librarysystem.entity.enums.BookStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "books")
+@DynamicUpdate
+@Table(
+        name = "books",
+        indexes = {
+                @Index(name = "idx_book_isbn13", columnList = "isbn13"),
+                // Catalog filters and sorts, see BookService.getBooks
+                @Index(name = "idx_book_status_id", columnList = "status, id"),
+                @Index(name = "idx_book_author_title_id", columnList = "author, title, id"),
+                @Index(name = "idx_book_title_id", columnList = "title, id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,6 +31,10 @@ public class Book {
     @Column(name = "isbn", nullable = false, length = 50)
     private String isbn;
 
+    // Numeric ISBN-13 parsed from isbn, null only for rows that were never parsed or had an invalid ISBN
+    @Column(name = "isbn13")
+    private Long isbn13;
+
     @Column(name = "title", nullable = false, length = 300)
     private String title;
 
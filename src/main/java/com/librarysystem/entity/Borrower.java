@@ -1,7 +1,9 @@
 package com.librarysystem.entity;
 
+import com.librarysystem.entity.enums.BorrowerCategory;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(
@@ -30,4 +32,16 @@ public class Borrower {
     @Column(name = "email", nullable = false)
     private String email;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", nullable = false, length = 20)
+    @ColumnDefault("'STANDARD'")
+    @Builder.Default
+    private BorrowerCategory category = BorrowerCategory.STANDARD;
+
+    // Only changed by the conditional updates in BorrowerRepository, so a stale entity never overwrites it
+    @Column(name = "active_loan_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int activeLoanCount = 0;
+
 }
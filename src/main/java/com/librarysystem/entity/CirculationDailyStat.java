@@ -0,0 +1,56 @@
+package com.librarysystem.entity;
+
+import com.librarysystem.entity.enums.StatDimension;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Borrows and returns per day for one ISBN, author or borrower, maintained by {@code CirculationRollup}.
+ */
+@Entity
+@Table(
+        name = "circulation_daily_stats",
+        indexes = {
+                @Index(name = "idx_circulation_stats_dimension_date", columnList = "dimension, stat_date")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CirculationDailyStat {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "borrow_count", nullable = false)
+    private long borrowCount;
+
+    @Column(name = "return_count", nullable = false)
+    private long returnCount;
+
+    @Embeddable
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(name = "stat_date", nullable = false)
+        private LocalDate statDate;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "dimension", nullable = false, length = 20)
+        private StatDimension dimension;
+
+        // ISBN, author name or borrower id
+        @Column(name = "dimension_key", nullable = false, length = 300)
+        private String dimensionKey;
+
+    }
+
+}
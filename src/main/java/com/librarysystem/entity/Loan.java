@@ -3,14 +3,24 @@ package com.librarysystem.entity;
 import com.librarysystem.entity.enums.LoanStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate
 @Table(
         name = "loans",
         indexes = {
-                @Index(name = "idx_loan_book_status", columnList = "book_id, status")
+                @Index(name = "idx_loan_book_status", columnList = "book_id, status"),
+                @Index(name = "idx_loan_borrower", columnList = "borrower_id, borrowed_at"),
+                @Index(name = "idx_loan_status_returned_at", columnList = "status, returned_at")
+        },
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        name = "uq_loan_active_book",
+                        columnNames = "active_book_id"
+                )
         }
 )
 @Getter
@@ -38,10 +48,32 @@ public class Loan {
     )
     private Borrower borrower;
 
+    // Snapshot of the book and borrower taken when the loan is created, so loans can be listed from this
+    // table alone. Nullable only for rows created before these columns existed, see LoanColumnBackfill
+    @Column(name = "book_isbn", length = 50)
+    private String bookIsbn;
+
+    @Column(name = "book_title", length = 300)
+    private String bookTitle;
+
+    @Column(name = "book_author")
+    private String bookAuthor;
+
+    @Column(name = "borrower_name")
+    private String borrowerName;
+
+    @Column(name = "borrower_email")
+    private String borrowerEmail;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
     private LoanStatus status;
 
+    // Book id while the loan is ACTIVE, null once returned. The unique constraint allows only one active
+    // loan per book, and finding the active loan of a book is one lookup on it
+    @Column(name = "active_book_id")
+    private Long activeBookId;
+
     @Column(name = "borrowed_at", nullable = false)
     private LocalDateTime borrowedAt;
 
@@ -0,0 +1,65 @@
+package com.librarysystem.entity;
+
+import com.librarysystem.entity.enums.LoanStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Returned loans moved out of {@code loans} by {@code LoanArchiver}. Rows keep their original id and have no
+ * foreign keys, they are only read by the loan history endpoints.
+ */
+@Entity
+@Table(
+        name = "loans_archive",
+        indexes = {
+                @Index(name = "idx_loan_archive_borrower", columnList = "borrower_id, borrowed_at"),
+                @Index(name = "idx_loan_archive_book", columnList = "book_id, borrowed_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "borrower_id", nullable = false)
+    private Long borrowerId;
+
+    @Column(name = "book_isbn", length = 50)
+    private String bookIsbn;
+
+    @Column(name = "book_title", length = 300)
+    private String bookTitle;
+
+    @Column(name = "book_author")
+    private String bookAuthor;
+
+    @Column(name = "borrower_name")
+    private String borrowerName;
+
+    @Column(name = "borrower_email")
+    private String borrowerEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private LoanStatus status;
+
+    @Column(name = "borrowed_at", nullable = false)
+    private LocalDateTime borrowedAt;
+
+    @Column(name = "returned_at")
+    private LocalDateTime returnedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+}
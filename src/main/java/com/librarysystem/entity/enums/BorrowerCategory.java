@@ -0,0 +1,9 @@
+package com.librarysystem.entity.enums;
+
+public enum BorrowerCategory {
+
+    STANDARD,
+    STUDENT,
+    STAFF
+
+}
@@ -0,0 +1,9 @@
+package com.librarysystem.entity.enums;
+
+public enum StatDimension {
+
+    ISBN,
+    AUTHOR,
+    BORROWER
+
+}
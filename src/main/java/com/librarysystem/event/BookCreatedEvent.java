@@ -0,0 +1,8 @@
+package com.librarysystem.event;
+
+/**
+ * Published by {@code BookService} when a book copy is registered. Like {@link LoanEvent}, listeners that only
+ * care about committed changes use {@code @TransactionalEventListener}.
+ */
+public record BookCreatedEvent(Long bookId, String isbn) {
+}
@@ -0,0 +1,38 @@
+package com.librarysystem.event;
+
+import com.librarysystem.entity.Loan;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@code LoanService} when a book is borrowed or returned. Listeners that only care about committed
+ * changes use {@code @TransactionalEventListener}, which runs after the loan transaction commits.
+ */
+public record LoanEvent(Type type,
+                        Long loanId,
+                        Long bookId,
+                        String isbn,
+                        String title,
+                        String author,
+                        Long borrowerId,
+                        LocalDateTime occurredAt) {
+
+    public enum Type {
+        BORROWED,
+        RETURNED
+    }
+
+    public static LoanEvent borrowed(Loan loan) {
+        return of(Type.BORROWED, loan, loan.getBorrowedAt());
+    }
+
+    public static LoanEvent returned(Loan loan) {
+        return of(Type.RETURNED, loan, loan.getReturnedAt());
+    }
+
+    private static LoanEvent of(Type type, Loan loan, LocalDateTime occurredAt) {
+        return new LoanEvent(type, loan.getId(), loan.getBook().getId(), loan.getBookIsbn(), loan.getBookTitle(),
+                loan.getBookAuthor(), loan.getBorrower().getId(), occurredAt);
+    }
+
+}
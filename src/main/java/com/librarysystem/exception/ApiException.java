@@ -2,12 +2,21 @@ package com.librarysystem.exception;
 
 import org.springframework.http.HttpStatus;
 
+/**
+ * Base of the errors returned to clients with their own status and message.
+ * <p>
+ * These are expected outcomes (already borrowed, not found, busy) thrown on every rejected request, so they
+ * skip filling in a stack trace. Start the JVM with {@code -Dlibrary.errors.stack-traces=true} to get them back
+ * while debugging.
+ */
 public class ApiException extends RuntimeException {
 
+    private static final boolean STACK_TRACES = Boolean.getBoolean("library.errors.stack-traces");
+
     private final HttpStatus httpStatus;
 
     public ApiException(HttpStatus httpStatus, String message) {
-        super(message);
+        super(message, null, true, STACK_TRACES);
         this.httpStatus = httpStatus;
     }
 
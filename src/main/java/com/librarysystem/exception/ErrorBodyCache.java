@@ -0,0 +1,95 @@
+package com.librarysystem.exception;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpStatus;
+import tools.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes {@link com.librarysystem.exception.dto.ErrorResponse} JSON for {@link ApiException}s without going
+ * through Jackson.
+ * <p>
+ * The {@code status}, {@code error} and {@code message} part is escaped once per status and message and kept in a
+ * bounded cache, and the timestamp is formatted once per millisecond, so a rejected request only escapes its path
+ * and copies bytes.
+ */
+class ErrorBodyCache {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private final Cache<String, byte[]> fragments;
+
+    private volatile Timestamp lastTimestamp = new Timestamp(LocalDateTime.MIN, "");
+
+    ErrorBodyCache(long maxSize) {
+        this.fragments = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    byte[] json(HttpStatus status, String message, String path) {
+        byte[] fragment = fragments.get(status.value() + ":" + message, key -> fragment(status, message));
+        byte[] timestamp = timestamp();
+        byte[] escapedPath = ENCODER.quoteAsUTF8(path);
+
+        byte[] body = new byte[14 + timestamp.length + 2 + fragment.length + 9 + escapedPath.length + 17];
+        int offset = put(body, 0, "{\"timestamp\":\"");
+        offset = put(body, offset, timestamp);
+        offset = put(body, offset, "\",");
+        offset = put(body, offset, fragment);
+        offset = put(body, offset, ",\"path\":\"");
+        offset = put(body, offset, escapedPath);
+        put(body, offset, "\",\"details\":null}");
+        return body;
+    }
+
+    private static byte[] fragment(HttpStatus status, String message) {
+        StringBuilder json = new StringBuilder(64)
+                .append("\"status\":").append(status.value())
+                .append(",\"error\":\"").append(status.name())
+                .append("\",\"message\":");
+        if (message == null) {
+            json.append("null");
+        } else {
+            ENCODER.quoteAsString(message, json.append('"'));
+            json.append('"');
+        }
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] timestamp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Timestamp last = lastTimestamp;
+        if (!last.time().equals(now)) {
+            last = new Timestamp(now, TIMESTAMP_FORMAT.format(now));
+            lastTimestamp = last;
+        }
+        return last.bytes();
+    }
+
+    private static int put(byte[] target, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            target[offset++] = (byte) ascii.charAt(i);
+        }
+        return offset;
+    }
+
+    private static int put(byte[] target, int offset, byte[] source) {
+        System.arraycopy(source, 0, target, offset, source.length);
+        return offset + source.length;
+    }
+
+    private record Timestamp(LocalDateTime time, byte[] bytes) {
+
+        Timestamp(LocalDateTime time, String formatted) {
+            this(time, formatted.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+}
@@ -4,9 +4,12 @@ import com.librarysystem.exception.dto.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,10 +24,30 @@ import java.util.List;
 @RestControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final ErrorBodyCache errorBodyCache;
+
+    public GlobalExceptionHandler(@Value("${library.errors.body-cache-max-size:1000}") long bodyCacheMaxSize) {
+        this.errorBodyCache = new ErrorBodyCache(bodyCacheMaxSize);
+    }
+
+    /**
+     * JSON clients get a preformatted body from {@link ErrorBodyCache}, others (e.g. CBOR) get an
+     * {@link ErrorResponse} written by the negotiated converter.
+     */
     @ExceptionHandler(ApiException.class)
-    public ResponseEntity<ErrorResponse> handleApiException(ApiException ex, HttpServletRequest request) {
+    public ResponseEntity<?> handleApiException(ApiException ex, HttpServletRequest request) {
         HttpStatus httpStatus = ex.getHttpStatus();
 
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(httpStatus);
+        if (ex instanceof ServiceUnavailableException unavailable) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, unavailable.getRetryAfter().toSeconds())));
+        }
+
+        if (acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return response.contentType(MediaType.APPLICATION_JSON)
+                    .body(errorBodyCache.json(httpStatus, ex.getMessage(), request.getRequestURI()));
+        }
+
         ErrorResponse body = ErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
                 .status(httpStatus.value())
@@ -33,7 +56,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
-        return ResponseEntity.status(httpStatus).body(body);
+        return response.body(body);
     }
 
     @Override
@@ -73,4 +96,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
         return ResponseEntity.status(status).body(body);
     }
+
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        if (accept.contains("cbor")) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(type -> type.includes(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.librarysystem.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+public class ServiceUnavailableException extends ApiException {
+
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,20 +1,44 @@
 package com.librarysystem.repository;
 
 import com.librarysystem.entity.Book;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
-    Optional<Book> findFirstByIsbn(String isbn);
+    // Not read-only, so BookCache loads from the primary and never caches a book a lagging replica has not updated
+    @Override
+    @Transactional
+    Optional<Book> findById(Long id);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT b FROM Book b WHERE b.id = :id")
-    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+    @Override
+    @Transactional
+    List<Book> findAllById(Iterable<Long> ids);
+
+    Optional<Book> findFirstByIsbn13(Long isbn13);
+
+    List<Book> findTop1000ByIsbn13IsNullAndIdGreaterThanOrderById(Long id);
+
+    /**
+     * Flips the book to {@code BORROWED} if it is still {@code AVAILABLE}. The update takes the row lock,
+     * which is then held until the borrowing transaction commits.
+     *
+     * @return 1 if this call borrowed the book, 0 if it was already borrowed or does not exist
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.status = com.librarysystem.entity.enums.BookStatus.BORROWED " +
+            "WHERE b.id = :id AND b.status = com.librarysystem.entity.enums.BookStatus.AVAILABLE")
+    int markBorrowed(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.status = com.librarysystem.entity.enums.BookStatus.AVAILABLE WHERE b.id = :id")
+    int markAvailable(@Param("id") Long id);
 
 }
@@ -1,10 +1,55 @@
 package com.librarysystem.repository;
 
 import com.librarysystem.entity.Borrower;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
 
     boolean existsByEmail(String email);
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.email FROM Borrower b")
+    Stream<String> streamAllEmails();
+
+    @Query("SELECT b.email FROM Borrower b WHERE b.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Counts a new active loan unless the borrower already has {@code limit}. The row stays locked until commit,
+     * so concurrent borrows by the same borrower are checked one after another.
+     *
+     * @return 1 if the loan was counted, 0 if the borrower is at the limit
+     */
+    @Modifying
+    @Query("UPDATE Borrower b SET b.activeLoanCount = b.activeLoanCount + 1 " +
+            "WHERE b.id = :id AND b.activeLoanCount < :limit")
+    int incrementActiveLoans(@Param("id") Long id, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Borrower b SET b.activeLoanCount = b.activeLoanCount - 1 " +
+            "WHERE b.id = :id AND b.activeLoanCount > 0")
+    int decrementActiveLoans(@Param("id") Long id);
+
+    /**
+     * Counts the active loans of borrowers created before {@code active_loan_count} existed. Borrowers with an
+     * active loan always have a count of at least 1 afterwards, so later runs match no rows.
+     */
+    @Modifying
+    @Query("UPDATE Borrower b SET b.activeLoanCount = " +
+            "(SELECT COUNT(l) FROM Loan l WHERE l.borrower = b AND l.activeBookId IS NOT NULL) " +
+            "WHERE b.activeLoanCount = 0 " +
+            "AND b.id IN (SELECT l.borrower.id FROM Loan l WHERE l.activeBookId IS NOT NULL)")
+    int backfillActiveLoanCounts();
+
 }
@@ -0,0 +1,27 @@
+package com.librarysystem.repository;
+
+import com.librarysystem.dto.response.CirculationStatResponse;
+import com.librarysystem.entity.CirculationDailyStat;
+import com.librarysystem.entity.enums.StatDimension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CirculationDailyStatRepository extends JpaRepository<CirculationDailyStat, CirculationDailyStat.Key> {
+
+    @Query("SELECT new com.librarysystem.dto.response.CirculationStatResponse(" +
+            "s.id.dimensionKey, SUM(s.borrowCount), SUM(s.returnCount)) " +
+            "FROM CirculationDailyStat s " +
+            "WHERE s.id.dimension = :dimension AND s.id.statDate BETWEEN :from AND :to " +
+            "GROUP BY s.id.dimensionKey " +
+            "ORDER BY SUM(s.borrowCount) DESC, s.id.dimensionKey")
+    List<CirculationStatResponse> sumByKey(@Param("dimension") StatDimension dimension,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           Pageable pageable);
+
+}
@@ -0,0 +1,32 @@
+package com.librarysystem.repository;
+
+import com.librarysystem.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Not read-only, so the lookup goes to the primary and sees keys a lagging replica has not applied yet
+    @Override
+    @Transactional
+    Optional<IdempotencyRecord> findById(String key);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Deletes the record of {@code key} if it has expired, so the key can be inserted again before
+     * {@link #deleteExpired} runs. A record stored concurrently under the same key is not expired and stays.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteExpiredKey(@Param("key") String key, @Param("now") LocalDateTime now);
+
+}
@@ -1,14 +1,50 @@
 package com.librarysystem.repository;
 
-import com.librarysystem.entity.Book;
 import com.librarysystem.entity.Loan;
-import com.librarysystem.entity.enums.LoanStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    Optional<Loan> findByBookAndStatus(Book book, LoanStatus status);
+    // Unique index lookup on active_book_id, independent of how many past loans the book has
+    Optional<Loan> findByActiveBookId(Long bookId);
+
+    /**
+     * Marks the loan returned if it is still active. The update takes the row lock, so of two concurrent returns
+     * of the same loan the second waits and then matches no row.
+     *
+     * @return 1 if this call returned the loan, 0 if it was already returned
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Loan l SET l.status = com.librarysystem.entity.enums.LoanStatus.RETURNED, " +
+            "l.activeBookId = NULL, l.returnedAt = :returnedAt " +
+            "WHERE l.id = :id AND l.activeBookId IS NOT NULL")
+    int markReturned(@Param("id") Long id, @Param("returnedAt") LocalDateTime returnedAt);
+
+    @Modifying
+    @Query("UPDATE Loan l SET l.activeBookId = l.book.id " +
+            "WHERE l.status = com.librarysystem.entity.enums.LoanStatus.ACTIVE AND l.activeBookId IS NULL")
+    int backfillActiveBookIds();
+
+    @Query("SELECT MIN(l.id) FROM Loan l WHERE l.bookIsbn IS NULL")
+    Optional<Long> findMinIdWithoutSnapshot();
+
+    @Query("SELECT MAX(l.id) FROM Loan l WHERE l.bookIsbn IS NULL")
+    Optional<Long> findMaxIdWithoutSnapshot();
+
+    @Modifying
+    @Query("UPDATE Loan l SET " +
+            "l.bookIsbn = (SELECT b.isbn FROM Book b WHERE b.id = l.book.id), " +
+            "l.bookTitle = (SELECT b.title FROM Book b WHERE b.id = l.book.id), " +
+            "l.bookAuthor = (SELECT b.author FROM Book b WHERE b.id = l.book.id), " +
+            "l.borrowerName = (SELECT br.name FROM Borrower br WHERE br.id = l.borrower.id), " +
+            "l.borrowerEmail = (SELECT br.email FROM Borrower br WHERE br.id = l.borrower.id) " +
+            "WHERE l.bookIsbn IS NULL AND l.id BETWEEN :fromId AND :toId")
+    int backfillSnapshots(@Param("fromId") Long fromId, @Param("toId") Long toId);
 
 }
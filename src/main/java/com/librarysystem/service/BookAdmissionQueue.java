@@ -0,0 +1,145 @@
+package com.librarysystem.service;
+
+import com.librarysystem.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets one borrow or return per book through at a time, so requests for the same book wait here instead of each
+ * holding a pooled connection while blocked on the book's row lock.
+ * <p>
+ * A book gets a fair single-permit semaphore on first use, dropped again once nobody holds or waits for it. At
+ * most {@code library.loans.admission.max-waiters} requests wait per book, each for at most
+ * {@code library.loans.admission.timeout}, others get the same 503 as a row lock timeout. Waiting requests are
+ * exposed per book at {@code /actuator/bookqueues}. This only orders requests within one instance, the row lock
+ * still orders them across instances.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "bookqueues")
+public class BookAdmissionQueue {
+
+    private static final int TOP_BOOKS = 20;
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final int maxWaiters;
+    private final Duration timeout;
+    private final Duration retryAfter;
+    private final Counter rejected;
+    private final Timer waits;
+
+    public BookAdmissionQueue(MeterRegistry meterRegistry,
+                              @Value("${library.loans.admission.max-waiters:50}") int maxWaiters,
+                              @Value("${library.loans.admission.timeout:2s}") Duration timeout,
+                              @Value("${library.loans.lock-retry-after:1s}") Duration retryAfter) {
+        this.maxWaiters = maxWaiters;
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+        this.rejected = meterRegistry.counter("library.books.admission.rejected");
+        this.waits = meterRegistry.timer("library.books.admission.wait");
+        Gauge.builder("library.books.admission.waiting", slots, BookAdmissionQueue::totalWaiting)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until no other request holds {@code bookId}, every successful call must be followed by {@link #release}.
+     *
+     * @throws ServiceUnavailableException if too many requests already wait for the book or the wait timed out
+     */
+    public void acquire(Long bookId) {
+        Slot slot = slots.compute(bookId, (id, existing) -> {
+            Slot joined = existing != null ? existing : new Slot();
+            joined.users.incrementAndGet();
+            return joined;
+        });
+
+        if (slot.users.get() > maxWaiters + 1) {
+            leave(bookId);
+            log.warn("Rejecting request for book id={}, {} requests are already waiting", bookId, maxWaiters);
+            throw reject();
+        }
+
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = slot.permit.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!admitted) {
+            leave(bookId);
+            log.warn("Timed out waiting for book id={} after {}", bookId, timeout);
+            throw reject();
+        }
+    }
+
+    public void release(Long bookId) {
+        Slot slot = slots.get(bookId);
+        if (slot == null) {
+            throw new IllegalStateException("Book id=" + bookId + " was not acquired");
+        }
+        slot.permit.release();
+        leave(bookId);
+    }
+
+    public int waitingFor(Long bookId) {
+        Slot slot = slots.get(bookId);
+        return slot != null ? slot.waiting() : 0;
+    }
+
+    @ReadOperation
+    public Map<Long, Integer> longestQueues() {
+        Map<Long, Integer> top = new LinkedHashMap<>();
+        slots.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().waiting()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(TOP_BOOKS)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    // The slot is dropped in the same atomic step that sees its last user leave
+    private void leave(Long bookId) {
+        slots.computeIfPresent(bookId, (id, slot) -> slot.users.decrementAndGet() == 0 ? null : slot);
+    }
+
+    private ServiceUnavailableException reject() {
+        rejected.increment();
+        return new ServiceUnavailableException("Book is busy, please retry", retryAfter);
+    }
+
+    private static double totalWaiting(Map<Long, Slot> slots) {
+        return slots.values().stream().mapToInt(Slot::waiting).sum();
+    }
+
+    private static final class Slot {
+
+        private final Semaphore permit = new Semaphore(1, true);
+        private final AtomicInteger users = new AtomicInteger();
+
+        // users counts the holder too
+        int waiting() {
+            return Math.max(0, users.get() - 1);
+        }
+    }
+
+}
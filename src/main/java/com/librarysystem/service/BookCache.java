@@ -0,0 +1,121 @@
+package com.librarysystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librarysystem.dto.response.BookResponse;
+import com.librarysystem.event.LoanEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Local cache of {@link BookResponse}s by book id in front of {@code GET /api/books/{id}} and
+ * {@code GET /api/books?ids=}, so resolving a scanned copy usually costs no DB connection.
+ * <p>
+ * Bounded by the approximate size of the cached books, {@code library.books.cache.max-size}, with Caffeine's
+ * W-TinyLFU eviction, so a burst of one-off lookups does not push out the copies scanned all day. A book is
+ * dropped after every committed borrow and return of it on this instance. Changes made through another instance
+ * are not seen here, so entries also expire after {@code library.books.cache.ttl}. Hits and misses are exposed as
+ * {@code cache.gets} with {@code cache=books}.
+ * <p>
+ * Loaders must read the primary, a lagging replica would put back what was just invalidated. A load that read
+ * the book before a borrow or return committed can still finish after the invalidation, so every invalidation
+ * also bumps a counter for the book's stripe and a load is dropped again if its stripe moved while it ran.
+ */
+@Component
+public class BookCache {
+
+    // Object headers, the response fields and the three strings' headers
+    private static final int BASE_WEIGHT = 160;
+
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final Cache<Long, BookResponse> cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    @Autowired
+    public BookCache(MeterRegistry meterRegistry,
+                     @Value("${library.books.cache.max-size:16MB}") DataSize maxSize,
+                     @Value("${library.books.cache.ttl:10s}") Duration ttl) {
+        this(maxSize, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    BookCache(DataSize maxSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, BookResponse book) -> weigh(book))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param loader called on a miss, may return {@code null} for a book that does not exist, which is not cached
+     */
+    public BookResponse get(Long id, Function<Long, BookResponse> loader) {
+        Map<Long, Long> stamps = new HashMap<>(1);
+        BookResponse book = cache.get(id, missing -> {
+            stamps.put(missing, invalidations.get(stripe(missing)));
+            return loader.apply(missing);
+        });
+        stamps.forEach(this::dropIfInvalidated);
+        return book;
+    }
+
+    /**
+     * @param loader called once with all ids that missed, books it does not return are left out of the result
+     */
+    public Map<Long, BookResponse> getAll(Collection<Long> ids,
+                                          Function<Set<Long>, Map<Long, BookResponse>> loader) {
+        Map<Long, Long> stamps = new HashMap<>();
+        Map<Long, BookResponse> books = cache.getAll(ids, missing -> {
+            missing.forEach(id -> stamps.put(id, invalidations.get(stripe(id))));
+            return loader.apply(Set.copyOf(missing));
+        });
+        stamps.forEach(this::dropIfInvalidated);
+        return books;
+    }
+
+    @TransactionalEventListener
+    public void onLoanEvent(LoanEvent event) {
+        invalidate(event.bookId());
+    }
+
+    void invalidate(Long id) {
+        // Counted before the entry is dropped, so a load that misses the drop sees the count
+        invalidations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private void dropIfInvalidated(Long id, long stamp) {
+        if (invalidations.get(stripe(id)) != stamp) {
+            cache.invalidate(id);
+        }
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(Long.hashCode(id), INVALIDATION_STRIPES);
+    }
+
+    private static int weigh(BookResponse book) {
+        return BASE_WEIGHT + 2 * (length(book.getIsbn()) + length(book.getTitle()) + length(book.getAuthor()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.librarysystem.service;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills {@code books.isbn13} for rows created before the column existed, and rewrites their {@code isbn} to the
+ * same 13 digits without separators that new books are stored with.
+ * <p>
+ * Runs once the app is ready, 1000 books per transaction in id order. Rows whose ISBN does not parse are logged
+ * and left with a null {@code isbn13}, so they are not found by ISBN until corrected.
+ */
+@Slf4j
+@Component
+public class BookIsbnBackfill {
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookIsbnBackfill(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        int updated = 0;
+        int invalid = 0;
+
+        while (true) {
+            long afterId = lastId;
+            List<Book> books = transactionTemplate.execute(status -> {
+                List<Book> batch = bookRepository.findTop1000ByIsbn13IsNullAndIdGreaterThanOrderById(afterId);
+                for (Book book : batch) {
+                    long isbn13 = Isbn.parse(book.getIsbn());
+                    if (isbn13 != Isbn.INVALID) {
+                        book.setIsbn13(isbn13);
+                        book.setIsbn(Isbn.format(isbn13));
+                    }
+                }
+                return batch;
+            });
+            if (books.isEmpty()) {
+                break;
+            }
+
+            for (Book book : books) {
+                if (book.getIsbn13() != null) {
+                    updated++;
+                } else {
+                    invalid++;
+                    log.warn("Book id={} has an invalid ISBN isbn={}, leaving isbn13 empty", book.getId(), book.getIsbn());
+                }
+            }
+            lastId = books.get(books.size() - 1).getId();
+        }
+
+        if (updated > 0 || invalid > 0) {
+            log.info("Backfilled isbn13 of {} books, {} books have an invalid ISBN", updated, invalid);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.librarysystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librarysystem.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts book row lock timeouts, in total as a metric and per book id for the {@code /actuator/booklocks}
+ * endpoint. Per-book counts are kept for a bounded number of books so a burst over many ids cannot grow memory.
+ */
+@Component
+@Endpoint(id = "booklocks")
+public class BookLockMonitor {
+
+    private static final int MAX_TRACKED_BOOKS = 1000;
+    private static final int TOP_BOOKS = 20;
+
+    private final Cache<Long, LongAdder> timeoutsByBook = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_BOOKS)
+            .build();
+    private final Counter timeouts;
+    private final Duration retryAfter;
+
+    public BookLockMonitor(MeterRegistry meterRegistry,
+                           @Value("${library.loans.lock-retry-after:1s}") Duration retryAfter) {
+        this.timeouts = meterRegistry.counter("library.books.lock.timeouts");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Records a lock timeout on {@code bookId}.
+     *
+     * @return exception to throw so the client retries later
+     */
+    public ServiceUnavailableException lockTimedOut(Long bookId) {
+        timeouts.increment();
+        timeoutsByBook.get(bookId, id -> new LongAdder()).increment();
+        return new ServiceUnavailableException("Book is busy, please retry", retryAfter);
+    }
+
+    public long timeoutsFor(Long bookId) {
+        LongAdder count = timeoutsByBook.getIfPresent(bookId);
+        return count != null ? count.sum() : 0;
+    }
+
+    @ReadOperation
+    public Map<Long, Long> mostContendedBooks() {
+        Map<Long, Long> top = new LinkedHashMap<>();
+        timeoutsByBook.asMap().entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(TOP_BOOKS)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+}
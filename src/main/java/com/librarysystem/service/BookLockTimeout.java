@@ -0,0 +1,72 @@
+package com.librarysystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Bounds how long a borrow or return waits for row locks, by setting MySQL's {@code innodb_lock_wait_timeout} on
+ * the transaction's connection and putting the server default back once the transaction completes.
+ * <p>
+ * Only these transactions get the short wait. The archiver, the rollup flush and bulk enrollment keep MySQL's
+ * default on the same pooled connections, where waiting is better than failing. Hibernate's MySQL dialect ignores
+ * {@code jakarta.persistence.lock.timeout}, so the session variable is the only way to bound the wait. Other
+ * databases are left alone.
+ */
+@Slf4j
+@Component
+public class BookLockTimeout {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeoutSeconds;
+    private volatile Boolean mysql;
+
+    public BookLockTimeout(JdbcTemplate jdbcTemplate,
+                           @Value("${library.loans.lock-wait-timeout:2s}") Duration timeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutSeconds = Math.max(1, timeout.toSeconds());
+    }
+
+    /**
+     * Shortens the lock wait for the rest of the current transaction, further calls in the same transaction do
+     * nothing. Must be called inside a transaction.
+     */
+    public void apply() {
+        if (TransactionSynchronizationManager.hasResource(this) || !isMysql()) {
+            return;
+        }
+        jdbcTemplate.execute("SET SESSION innodb_lock_wait_timeout = " + timeoutSeconds);
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(BookLockTimeout.this);
+                // Still the transaction's connection, it goes back to the pool only after this
+                try {
+                    jdbcTemplate.execute("SET SESSION innodb_lock_wait_timeout = DEFAULT");
+                } catch (DataAccessException ex) {
+                    log.warn("Could not restore innodb_lock_wait_timeout: {}", ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private boolean isMysql() {
+        Boolean result = mysql;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "MySQL".equalsIgnoreCase(product);
+            mysql = result;
+        }
+        return result;
+    }
+
+}
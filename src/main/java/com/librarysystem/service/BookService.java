@@ -1,33 +1,63 @@
 package com.librarysystem.service;
 
+import com.librarysystem.dto.request.BookFilter;
 import com.librarysystem.dto.request.CreateBookRequest;
 import com.librarysystem.dto.response.BookResponse;
 import com.librarysystem.entity.Book;
+import com.librarysystem.event.BookCreatedEvent;
 import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.ResourceNotFoundException;
 import com.librarysystem.repository.BookRepository;
+import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCache bookCache;
+    private final int maxIdsPerRequest;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, ApplicationEventPublisher eventPublisher, BookCache bookCache,
+                       @Value("${library.books.max-ids-per-request:100}") int maxIdsPerRequest) {
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.bookCache = bookCache;
+        this.maxIdsPerRequest = maxIdsPerRequest;
     }
 
     @Transactional
     public BookResponse createBook(CreateBookRequest request) {
         log.info("Registering book with isbn={}", request.getIsbn());
 
-        Optional<Book> existingOptional = bookRepository.findFirstByIsbn(request.getIsbn());
+        long isbn13 = Isbn.parse(request.getIsbn());
+        if (isbn13 == Isbn.INVALID) {
+            throw new BusinessException("ISBN is not a valid ISBN-10 or ISBN-13");
+        }
+
+        Optional<Book> existingOptional = bookRepository.findFirstByIsbn13(isbn13);
         if (existingOptional.isPresent()) {
             Book existing = existingOptional.get();
 
@@ -45,23 +75,127 @@ public class BookService {
         }
 
         Book book = Book.builder()
-                .isbn(request.getIsbn())
+                .isbn(Isbn.format(isbn13))
+                .isbn13(isbn13)
                 .title(request.getTitle())
                 .author(request.getAuthor())
                 .build();
 
         Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookCreatedEvent(saved.getId(), saved.getIsbn()));
 
         return toBookResponse(saved);
     }
 
+    /**
+     * A page of books matching {@code filter}, in the order of {@code sortBy} or, when null, the order the index
+     * used for the filter already gives. Only orders that one of the {@code books} indexes returns without
+     * sorting are accepted:
+     * <ul>
+     *     <li>{@code isbn}: any order, an ISBN has only a few copies</li>
+     *     <li>{@code author}: {@code TITLE} or {@code AUTHOR}, read in order from {@code (author, title, id)}</li>
+     *     <li>{@code titlePrefix}: {@code TITLE}, a range of {@code (title, id)}</li>
+     *     <li>{@code status} alone: {@code ID}, read in order from {@code (status, id)}</li>
+     *     <li>no filter: any order</li>
+     * </ul>
+     * Other filters are checked on the rows the index returns. Every order ends with {@code id}, so pages are
+     * stable when titles or authors repeat.
+     */
     @Transactional(readOnly = true)
-    public Page<BookResponse> getBooks(Pageable pageable) {
-        log.info("Fetching all books");
-        return bookRepository.findAll(pageable)
+    public Page<BookResponse> getBooks(BookFilter filter, SortBy sortBy, Pageable pageable) {
+        log.info("Fetching books, filter={}, sortBy={}", filter, sortBy);
+
+        Long isbn13 = null;
+        if (StringUtils.hasText(filter.getIsbn())) {
+            isbn13 = Isbn.parse(filter.getIsbn());
+            if (isbn13 == Isbn.INVALID) {
+                throw new BusinessException("ISBN is not a valid ISBN-10 or ISBN-13");
+            }
+        }
+
+        Set<SortBy> supported = supportedSorts(filter, isbn13);
+        SortBy order = sortBy != null ? sortBy : supported.iterator().next();
+        if (!supported.contains(order)) {
+            throw new BusinessException("Sorting by " + order + " is not supported with these filters, use one of "
+                    + supported);
+        }
+
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), order.sort);
+        return bookRepository.findAll(matching(filter, isbn13), sorted)
                 .map(book -> toBookResponse(book));
     }
 
+    // Not transactional, so a cache hit does not take a connection
+    public BookResponse getBook(Long id) {
+        BookResponse book = bookCache.get(id, bookId -> bookRepository.findById(bookId)
+                .map(this::toBookResponse)
+                .orElse(null));
+        if (book == null) {
+            throw new ResourceNotFoundException("Book not found with id: " + id);
+        }
+        return book;
+    }
+
+    /**
+     * Books in the order of {@code ids}, without duplicates. Ids that are not cached are loaded with one
+     * {@code IN} query, and ids of books that do not exist are left out.
+     */
+    public List<BookResponse> getBooksByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.size() > maxIdsPerRequest) {
+            throw new BusinessException("At most " + maxIdsPerRequest + " ids can be requested at once");
+        }
+
+        Map<Long, BookResponse> books = bookCache.getAll(distinctIds, missing -> bookRepository.findAllById(missing)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, this::toBookResponse)));
+        return distinctIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // In ordinal order, so the first one is the default
+    private static Set<SortBy> supportedSorts(BookFilter filter, Long isbn13) {
+        if (isbn13 != null) {
+            return EnumSet.allOf(SortBy.class);
+        }
+        if (StringUtils.hasText(filter.getAuthor())) {
+            return EnumSet.of(SortBy.TITLE, SortBy.AUTHOR);
+        }
+        if (StringUtils.hasText(filter.getTitlePrefix())) {
+            return EnumSet.of(SortBy.TITLE);
+        }
+        if (filter.getStatus() != null) {
+            return EnumSet.of(SortBy.ID);
+        }
+        return EnumSet.allOf(SortBy.class);
+    }
+
+    private static Specification<Book> matching(BookFilter filter, Long isbn13) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(4);
+            if (isbn13 != null) {
+                predicates.add(cb.equal(root.get("isbn13"), isbn13));
+            }
+            if (StringUtils.hasText(filter.getAuthor())) {
+                predicates.add(cb.equal(root.get("author"), filter.getAuthor()));
+            }
+            if (StringUtils.hasText(filter.getTitlePrefix())) {
+                predicates.add(cb.like(root.get("title"), likePrefix(filter.getTitlePrefix()), '\\'));
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // No leading wildcard and no function on the column, so the title index can be range scanned
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     private BookResponse toBookResponse(Book book) {
         return BookResponse.builder()
                 .id(book.getId())
@@ -72,4 +206,17 @@ public class BookService {
                 .build();
     }
 
+    public enum SortBy {
+
+        ID(Sort.by("id")),
+        TITLE(Sort.by("title", "id")),
+        AUTHOR(Sort.by("author", "title", "id"));
+
+        private final Sort sort;
+
+        SortBy(Sort sort) {
+            this.sort = sort;
+        }
+    }
+
 }
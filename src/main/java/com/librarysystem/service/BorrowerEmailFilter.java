@@ -0,0 +1,149 @@
+package com.librarysystem.service;
+
+import com.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over normalized borrower emails, used to skip the {@code existsByEmail} lookup for emails
+ * that are definitely not registered yet.
+ * <p>
+ * A negative answer can still be wrong for emails registered on another node after this node loaded the
+ * filter, so callers must keep relying on the {@code uq_borrower_email} constraint. Until the filter has been
+ * loaded at startup every email is reported as "might be registered".
+ */
+@Slf4j
+@Component
+public class BorrowerEmailFilter {
+
+    private final BorrowerRepository borrowerRepository;
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashFunctions;
+    private final long expectedInsertions;
+    private final AtomicLong insertions = new AtomicLong();
+    private volatile boolean loaded;
+
+    private final Counter lookupsSkipped;
+    private final Counter lookupsRequired;
+
+    public BorrowerEmailFilter(BorrowerRepository borrowerRepository,
+                               @Value("${library.borrowers.email-filter.expected-insertions:2000000}") long expectedInsertions,
+                               @Value("${library.borrowers.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               MeterRegistry meterRegistry) {
+        this.borrowerRepository = borrowerRepository;
+        this.expectedInsertions = expectedInsertions;
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.numBits = (long) words * 64;
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+
+        this.lookupsSkipped = meterRegistry.counter("library.borrowers.email.lookups", "outcome", "skipped");
+        this.lookupsRequired = meterRegistry.counter("library.borrowers.email.lookups", "outcome", "required");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadFromDatabase() {
+        log.info("Loading borrower email filter ({} KB, {} hash functions)", numBits / 8 / 1024, numHashFunctions);
+
+        try (Stream<String> emails = borrowerRepository.streamAllEmails()) {
+            emails.forEach(this::put);
+        } catch (RuntimeException ex) {
+            // Stay unloaded so every registration keeps doing the lookup
+            log.error("Failed to load borrower email filter, duplicate checks will always query the DB", ex);
+            return;
+        }
+        loaded = true;
+
+        log.info("Borrower email filter loaded with {} emails", insertions.get());
+    }
+
+    /**
+     * @return {@code false} only if the email is definitely not registered as far as this node knows
+     */
+    public boolean mightContain(String email) {
+        if (!loaded) {
+            lookupsRequired.increment();
+            return true;
+        }
+
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                lookupsSkipped.increment();
+                return false;
+            }
+        }
+
+        lookupsRequired.increment();
+        return true;
+    }
+
+    public void put(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+            setBit((int) (index >>> 6), 1L << index);
+        }
+
+        if (insertions.incrementAndGet() == expectedInsertions + 1) {
+            log.warn("Borrower email filter exceeded its expected {} insertions, false positive rate will grow",
+                    expectedInsertions);
+        }
+    }
+
+    private void setBit(int word, long mask) {
+        long current = bits.get(word);
+        while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+            current = bits.get(word);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the trimmed, lower-cased email followed by the murmur3 finalizer.
+     * Normalizes while hashing so no intermediate string is allocated.
+     */
+    static long hash(String email) {
+        int start = 0;
+        int end = email.length();
+        while (start < end && Character.isWhitespace(email.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(email.charAt(end - 1))) {
+            end--;
+        }
+
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= Character.toLowerCase(email.charAt(i));
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e2d1a5f39L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
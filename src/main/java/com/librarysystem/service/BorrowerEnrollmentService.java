@@ -0,0 +1,312 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.request.CreateBorrowerRequest;
+import com.librarysystem.dto.response.BulkEnrollmentResponse;
+import com.librarysystem.dto.response.BulkEnrollmentRowResult;
+import com.librarysystem.dto.response.BulkEnrollmentRowResult.Status;
+import com.librarysystem.entity.enums.BorrowerCategory;
+import com.librarysystem.repository.BorrowerRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registers many borrowers from a streamed CSV or NDJSON body.
+ * <p>
+ * Rows are validated as they are read and processed in chunks: emails are de-duplicated within the whole
+ * batch, checked against {@code borrowers} with one {@code IN} query per chunk, and the remaining rows are
+ * inserted with a single JDBC batch per chunk. Each chunk commits on its own, so a failure part way through
+ * keeps the rows already reported as created.
+ */
+@Slf4j
+@Service
+public class BorrowerEnrollmentService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final String EMAIL_CONSTRAINT = "uq_borrower_email";
+
+    private static final String INSERT_BORROWER_SQL = "INSERT INTO borrowers (name, email, category, active_loan_count) " +
+            "VALUES (:name, :email, :category, 0)";
+
+    private final BorrowerRepository borrowerRepository;
+    private final BorrowerEmailFilter borrowerEmailFilter;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public BorrowerEnrollmentService(BorrowerRepository borrowerRepository,
+                                     BorrowerEmailFilter borrowerEmailFilter,
+                                     NamedParameterJdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     Validator validator,
+                                     @Value("${library.borrowers.bulk.chunk-size:1000}") int chunkSize) {
+        this.borrowerRepository = borrowerRepository;
+        this.borrowerEmailFilter = borrowerEmailFilter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkEnrollmentResponse enroll(InputStream body, Format format) {
+        log.info("Bulk enrollment started, format={}", format);
+
+        List<BulkEnrollmentRowResult> results = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            int rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (line.isBlank() || (rowNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+
+                BulkEnrollmentRowResult result = BulkEnrollmentRowResult.builder().row(rowNumber).build();
+                results.add(result);
+
+                CreateBorrowerRequest request = parseRow(line, format, result);
+                if (request == null) {
+                    continue;
+                }
+
+                result.setEmail(request.getEmail());
+                if (!seenEmails.add(normalize(request.getEmail()))) {
+                    result.setStatus(Status.DUPLICATE_IN_BATCH);
+                    result.setMessage("Email appears earlier in this batch");
+                    continue;
+                }
+
+                chunk.add(new PendingRow(request, result));
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read enrollment body", ex);
+        }
+
+        if (!chunk.isEmpty()) {
+            processChunk(chunk);
+        }
+
+        int created = (int) results.stream().filter(result -> result.getStatus() == Status.CREATED).count();
+        log.info("Bulk enrollment finished, rows={}, created={}", results.size(), created);
+
+        return BulkEnrollmentResponse.builder()
+                .totalRows(results.size())
+                .created(created)
+                .rejected(results.size() - created)
+                .rows(results)
+                .build();
+    }
+
+    private CreateBorrowerRequest parseRow(String line, Format format, BulkEnrollmentRowResult result) {
+        CreateBorrowerRequest request;
+        if (format == Format.NDJSON) {
+            try {
+                request = objectMapper.readValue(line, CreateBorrowerRequest.class);
+            } catch (JacksonException ex) {
+                return reject(result, "Malformed JSON");
+            }
+        } else {
+            List<String> fields = parseCsvLine(line);
+            if (fields == null) {
+                return reject(result, "Unterminated quoted field");
+            }
+            if (fields.size() != 2) {
+                return reject(result, "Expected 2 columns: name,email");
+            }
+            request = CreateBorrowerRequest.builder()
+                    .name(fields.get(0).strip())
+                    .email(fields.get(1).strip())
+                    .build();
+        }
+
+        Set<ConstraintViolation<CreateBorrowerRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            result.setEmail(request.getEmail());
+            return reject(result, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        return request;
+    }
+
+    private CreateBorrowerRequest reject(BulkEnrollmentRowResult result, String message) {
+        result.setStatus(Status.INVALID);
+        result.setMessage(message);
+        return null;
+    }
+
+    private void processChunk(List<PendingRow> chunk) {
+        Set<String> taken = borrowerRepository.findExistingEmails(
+                        chunk.stream().map(row -> row.request().getEmail()).toList())
+                .stream()
+                .map(BorrowerEnrollmentService::normalize)
+                .collect(Collectors.toSet());
+
+        List<PendingRow> toInsert = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk) {
+            if (taken.contains(normalize(row.request().getEmail()))) {
+                markEmailTaken(row.result());
+            } else {
+                toInsert.add(row);
+            }
+        }
+
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(toInsert));
+        } catch (DataIntegrityViolationException ex) {
+            // Usually another request registered one of these emails after the IN query, find the row one by one
+            log.warn("Bulk enrollment chunk violated a constraint, retrying {} rows individually: {}",
+                    toInsert.size(), ex.getMostSpecificCause().getMessage());
+            for (PendingRow row : toInsert) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(row)));
+                } catch (DataIntegrityViolationException rowEx) {
+                    if (isEmailTaken(rowEx)) {
+                        markEmailTaken(row.result());
+                    } else {
+                        log.warn("Bulk enrollment row {} rejected by the database: {}",
+                                row.result().getRow(), rowEx.getMostSpecificCause().getMessage());
+                        reject(row.result(), "Rejected by the database");
+                    }
+                }
+            }
+        }
+    }
+
+    // MySQL names the key in "Duplicate entry ... for key 'borrowers.uq_borrower_email'", H2 in its index name
+    private static boolean isEmailTaken(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return ex instanceof DuplicateKeyException
+                && message != null
+                && message.toLowerCase(Locale.ROOT).contains(EMAIL_CONSTRAINT);
+    }
+
+    private void insertBatch(List<PendingRow> rows) {
+        SqlParameterSource[] params = rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("name", row.request().getName())
+                        .addValue("email", row.request().getEmail())
+                        .addValue("category", categoryOf(row.request()).name()))
+                .toArray(SqlParameterSource[]::new);
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_BORROWER_SQL, params, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            BulkEnrollmentRowResult result = rows.get(i).result();
+            result.setStatus(Status.CREATED);
+            result.setMessage(null);
+            if (i < keys.size()) {
+                result.setBorrowerId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+            borrowerEmailFilter.put(result.getEmail());
+        }
+    }
+
+    private static BorrowerCategory categoryOf(CreateBorrowerRequest request) {
+        return request.getCategory() != null ? request.getCategory() : BorrowerCategory.STANDARD;
+    }
+
+    private void markEmailTaken(BulkEnrollmentRowResult result) {
+        result.setStatus(Status.EMAIL_TAKEN);
+        result.setMessage("Email is taken");
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.strip().replace(" ", "").equalsIgnoreCase("name,email");
+    }
+
+    /**
+     * Splits one CSV record, supporting double-quoted fields with embedded commas and {@code ""} escapes.
+     *
+     * @return the fields, or {@code null} if a quoted field is not closed
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String normalize(String email) {
+        return email.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingRow(CreateBorrowerRequest request, BulkEnrollmentRowResult result) {
+    }
+
+}
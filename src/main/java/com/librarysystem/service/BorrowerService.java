@@ -3,9 +3,13 @@ package com.librarysystem.service;
 import com.librarysystem.dto.request.CreateBorrowerRequest;
 import com.librarysystem.dto.response.BorrowerResponse;
 import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BorrowerCategory;
 import com.librarysystem.exception.DuplicateActionException;
 import com.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,16 +18,23 @@ import org.springframework.transaction.annotation.Transactional;
 public class BorrowerService {
 
     private final BorrowerRepository borrowerRepository;
+    private final BorrowerEmailFilter borrowerEmailFilter;
+    private final Counter registrations;
 
-    public BorrowerService(BorrowerRepository borrowerRepository) {
+    public BorrowerService(BorrowerRepository borrowerRepository, BorrowerEmailFilter borrowerEmailFilter,
+                           MeterRegistry meterRegistry) {
         this.borrowerRepository = borrowerRepository;
+        this.borrowerEmailFilter = borrowerEmailFilter;
+        this.registrations = meterRegistry.counter("library.borrowers.registrations");
     }
 
     @Transactional
     public BorrowerResponse createBorrower(CreateBorrowerRequest request) {
         log.info("Registering borrower with email={}", request.getEmail());
 
-        if (borrowerRepository.existsByEmail(request.getEmail())) {
+        // Emails the filter has never seen skip the lookup, uq_borrower_email still catches any miss
+        if (borrowerEmailFilter.mightContain(request.getEmail())
+                && borrowerRepository.existsByEmail(request.getEmail())) {
             log.warn("Attempt to register borrower with existing email={}", request.getEmail());
             throw new DuplicateActionException("Email is taken");
         }
@@ -31,14 +42,25 @@ public class BorrowerService {
         Borrower borrower = Borrower.builder()
                 .name(request.getName())
                 .email(request.getEmail())
+                .category(request.getCategory() != null ? request.getCategory() : BorrowerCategory.STANDARD)
                 .build();
 
-        Borrower saved = borrowerRepository.save(borrower);
+        Borrower saved;
+        try {
+            saved = borrowerRepository.save(borrower);
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Email uniqueness constraint rejected borrower with email={}", request.getEmail());
+            throw new DuplicateActionException("Email is taken");
+        }
+
+        borrowerEmailFilter.put(saved.getEmail());
+        registrations.increment();
 
         return BorrowerResponse.builder()
                 .id(saved.getId())
                 .name(saved.getName())
                 .email(saved.getEmail())
+                .category(saved.getCategory())
                 .build();
     }
 }
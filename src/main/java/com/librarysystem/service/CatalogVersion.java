@@ -0,0 +1,52 @@
+package com.librarysystem.service;
+
+import com.librarysystem.event.BookCreatedEvent;
+import com.librarysystem.event.LoanEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the book catalog, used as the weak ETag of {@code GET /api/books} so unchanged pages are answered
+ * with {@code 304 Not Modified} without touching the DB.
+ * <p>
+ * The counter is bumped after every committed registration, borrow and return on this instance. Changes made
+ * through another instance are not seen here, so the tag also rolls over every {@code library.books.etag-ttl},
+ * which bounds how long a client can be told an outdated page is current. Tags carry an id picked at startup,
+ * so a tag issued by another instance or before a restart never matches.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+    private final long ttlMillis;
+    private final Clock clock;
+
+    @Autowired
+    public CatalogVersion(@Value("${library.books.etag-ttl:5s}") Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    CatalogVersion(Duration ttl, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    // Read before the page is loaded, a change committed in between makes the next request miss, never hit stale
+    public String etag() {
+        return "W/\"" + instanceId + "-" + version.get() + "-" + clock.millis() / ttlMillis + "\"";
+    }
+
+    @TransactionalEventListener(classes = {BookCreatedEvent.class, LoanEvent.class})
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.librarysystem.service;
+
+import com.librarysystem.event.LoanEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Ring of {@link JournalRecord}s in a file, memory-mapped so an append is a copy into the page cache and
+ * {@link #force} is the only system call.
+ * <p>
+ * The first slot of the file holds the sequence of the last record known to be replicated, the others hold
+ * records, the record with sequence {@code s} in slot {@code 1 + (s - 1) % slots}. {@link #release} marks records
+ * replicated, which frees their slots for new ones, so the journal only fills up when replication falls
+ * {@link #capacity} records behind.
+ * <p>
+ * Records have a fixed size and carry their sequence number and a CRC32. {@link #readAll} reads from the first
+ * record after the released one and stops at the first slot whose checksum does not match or that holds another
+ * sequence, so a torn last write or a record left from an earlier pass of the ring is never read back. Not
+ * thread safe, only the writer thread uses it.
+ */
+public class CirculationJournal implements Closeable {
+
+    // sequence 8, type 4, active loans 4, loan, book and borrower ids 24, occurred at 8, checksum 4, padding 4
+    static final int RECORD_SIZE = 56;
+
+    private static final int CHECKSUM_OFFSET = 48;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final CRC32 crc = new CRC32();
+    private long nextSequence = 1;
+    private long released;
+
+    public CirculationJournal(Path path, long size) throws IOException {
+        if (size < RECORD_SIZE * 2L || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal size must be between " + RECORD_SIZE * 2 + " bytes and 2GB");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size - size % RECORD_SIZE);
+        this.slots = buffer.capacity() / RECORD_SIZE - 1;
+    }
+
+    /**
+     * Reads the records appended after the last released one and positions the journal after them.
+     */
+    public List<JournalRecord> readAll() {
+        released = buffer.getLong(0);
+        List<JournalRecord> records = new ArrayList<>();
+        long sequence = released + 1;
+        while (records.size() < slots) {
+            int position = position(sequence);
+            if (buffer.getLong(position) != sequence || buffer.getInt(position + CHECKSUM_OFFSET) != checksum(position)) {
+                break;
+            }
+
+            records.add(new JournalRecord(
+                    sequence,
+                    LoanEvent.Type.values()[buffer.getInt(position + 8)],
+                    buffer.getLong(position + 16),
+                    buffer.getLong(position + 24),
+                    buffer.getLong(position + 32),
+                    buffer.getInt(position + 12),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(position + 40)), ZoneOffset.UTC)));
+            sequence++;
+        }
+        nextSequence = sequence;
+        return records;
+    }
+
+    /**
+     * Most records the journal holds before some are released.
+     */
+    public int capacity() {
+        return slots;
+    }
+
+    public boolean hasRoom() {
+        return nextSequence - 1 - released < slots;
+    }
+
+    /**
+     * Sequence of the last appended record, or of the last released one if nothing was appended after it.
+     */
+    public long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Writes a record after the last one, it is only durable once {@link #force} returns.
+     *
+     * @throws IllegalStateException if the journal is full, check {@link #hasRoom} first
+     */
+    public JournalRecord append(LoanEvent.Type type, long loanId, long bookId, long borrowerId,
+                                int borrowerActiveLoans, LocalDateTime occurredAt) {
+        if (!hasRoom()) {
+            throw new IllegalStateException("Circulation journal is full");
+        }
+
+        int position = position(nextSequence);
+        buffer.putLong(position, nextSequence);
+        buffer.putInt(position + 8, type.ordinal());
+        buffer.putInt(position + 12, borrowerActiveLoans);
+        buffer.putLong(position + 16, loanId);
+        buffer.putLong(position + 24, bookId);
+        buffer.putLong(position + 32, borrowerId);
+        buffer.putLong(position + 40, occurredAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        buffer.putInt(position + CHECKSUM_OFFSET, checksum(position));
+
+        return new JournalRecord(nextSequence++, type, loanId, bookId, borrowerId, borrowerActiveLoans, occurredAt);
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Marks the records up to {@code sequence} replicated, their slots can be written again. Durable with the
+     * next {@link #force}, if it is lost they are only replicated again on the next start.
+     */
+    public void release(long sequence) {
+        if (sequence > released) {
+            released = Math.min(sequence, lastSequence());
+            buffer.putLong(0, released);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int position(long sequence) {
+        return (int) (1 + (sequence - 1) % slots) * RECORD_SIZE;
+    }
+
+    private int checksum(int position) {
+        crc.reset();
+        crc.update(buffer.slice(position, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+
+}
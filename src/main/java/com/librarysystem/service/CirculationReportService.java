@@ -0,0 +1,53 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.CirculationStatResponse;
+import com.librarysystem.entity.enums.StatDimension;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.repository.CirculationDailyStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Circulation reports, read from the daily rollups in {@code circulation_daily_stats}.
+ */
+@Slf4j
+@Service
+public class CirculationReportService {
+
+    private static final int MAX_DAYS = 366;
+    private static final int MAX_LIMIT = 1000;
+
+    private final CirculationDailyStatRepository circulationDailyStatRepository;
+
+    public CirculationReportService(CirculationDailyStatRepository circulationDailyStatRepository) {
+        this.circulationDailyStatRepository = circulationDailyStatRepository;
+    }
+
+    /**
+     * Borrows and returns per ISBN, author or borrower between {@code from} and {@code to} inclusive, most
+     * borrowed first.
+     */
+    @Transactional(readOnly = true)
+    public List<CirculationStatResponse> getCirculation(StatDimension dimension, LocalDate from, LocalDate to, int limit) {
+        log.info("Fetching circulation by {} from {} to {}", dimension, from, to);
+
+        if (from.isAfter(to)) {
+            throw new BusinessException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BusinessException("Date range must be at most " + MAX_DAYS + " days");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BusinessException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        return circulationDailyStatRepository.sumByKey(dimension, from, to, PageRequest.of(0, limit));
+    }
+
+}
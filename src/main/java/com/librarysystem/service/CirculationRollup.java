@@ -0,0 +1,127 @@
+package com.librarysystem.service;
+
+import com.librarysystem.entity.enums.StatDimension;
+import com.librarysystem.event.LoanEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Folds committed loan events into daily borrow and return counts per ISBN, author and borrower.
+ * <p>
+ * Counts are added up in memory and written to {@code circulation_daily_stats} every
+ * {@code library.stats.flush-interval} with one batched upsert in one transaction that adds to the stored counts,
+ * so several instances can flush into the same rows. Reports read only that table and never scan {@code loans}. Counts
+ * not yet flushed are lost if the process is killed, a normal shutdown flushes them.
+ */
+@Slf4j
+@Component
+public class CirculationRollup implements DisposableBean {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO circulation_daily_stats (stat_date, dimension, dimension_key, borrow_count, return_count)
+            VALUES (:statDate, :dimension, :dimensionKey, :borrowCount, :returnCount) AS new
+            ON DUPLICATE KEY UPDATE borrow_count = circulation_daily_stats.borrow_count + new.borrow_count,
+                                    return_count = circulation_daily_stats.return_count + new.return_count""";
+
+    private static final int MAX_KEY_LENGTH = 300;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentHashMap<StatKey, Counts> pending = new ConcurrentHashMap<>();
+
+    public CirculationRollup(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener
+    public void onLoanEvent(LoanEvent event) {
+        LocalDate day = event.occurredAt().toLocalDate();
+        Counts delta = event.type() == LoanEvent.Type.BORROWED ? Counts.BORROW : Counts.RETURN;
+
+        add(new StatKey(day, StatDimension.ISBN, event.isbn()), delta);
+        add(new StatKey(day, StatDimension.AUTHOR, event.author()), delta);
+        add(new StatKey(day, StatDimension.BORROWER, String.valueOf(event.borrowerId())), delta);
+    }
+
+    @Scheduled(fixedDelayString = "${library.stats.flush-interval:10s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() is atomic per key, an event arriving during the flush starts a new entry for the next one
+        Map<StatKey, Counts> drained = new HashMap<>();
+        for (StatKey key : pending.keySet()) {
+            Counts counts = pending.remove(key);
+            if (counts != null) {
+                drained.put(key, counts);
+            }
+        }
+
+        List<SqlParameterSource> params = new ArrayList<>(drained.size());
+        drained.forEach((key, counts) -> params.add(new MapSqlParameterSource()
+                .addValue("statDate", key.day())
+                .addValue("dimension", key.dimension().name())
+                .addValue("dimensionKey", key.key())
+                .addValue("borrowCount", counts.borrows())
+                .addValue("returnCount", counts.returns())));
+
+        // One transaction, so a failure leaves no rows written and re-adding every drained count cannot count twice
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, params.toArray(SqlParameterSource[]::new)));
+            log.debug("Flushed {} circulation stat rows", params.size());
+        } catch (DataAccessException ex) {
+            log.error("Failed to flush {} circulation stat rows, keeping them for the next flush", params.size(), ex);
+            drained.forEach(this::add);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private void add(StatKey key, Counts delta) {
+        pending.merge(key, delta, Counts::plus);
+    }
+
+    record StatKey(LocalDate day, StatDimension dimension, String key) {
+
+        StatKey {
+            if (key == null) {
+                key = "";
+            } else if (key.length() > MAX_KEY_LENGTH) {
+                key = key.substring(0, MAX_KEY_LENGTH);
+            }
+        }
+    }
+
+    record Counts(long borrows, long returns) {
+
+        static final Counts BORROW = new Counts(1, 0);
+        static final Counts RETURN = new Counts(0, 1);
+
+        Counts plus(Counts other) {
+            return new Counts(borrows + other.borrows, returns + other.returns);
+        }
+    }
+
+}
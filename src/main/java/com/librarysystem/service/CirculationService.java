@@ -0,0 +1,16 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.LoanResponse;
+
+/**
+ * Borrowing and returning books. {@link LoanService} runs each command in its own database transaction, it is
+ * replaced by {@link GroupCommitCirculationService} when {@code library.circulation.mode=group-commit} and by
+ * {@link JournaledCirculationService} when it is {@code journal}.
+ */
+public interface CirculationService {
+
+    LoanResponse borrowBook(Long borrowerId, Long bookId);
+
+    LoanResponse returnBook(Long borrowerId, Long bookId);
+
+}
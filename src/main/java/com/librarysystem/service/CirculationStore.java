@@ -0,0 +1,160 @@
+package com.librarysystem.service;
+
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.entity.enums.BorrowerCategory;
+import com.librarysystem.event.LoanEvent;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Database side of {@link JournaledCirculationService}: loads books and borrowers into the engine on first use
+ * and replicates journal records to {@code loans}, {@code books} and {@code borrowers}.
+ * <p>
+ * Replication only writes absolute values, a borrow inserts its loan unless that id exists and every record sets
+ * the book status and the borrower's active loan count, so replaying records that already reached the database
+ * after a crash changes nothing. Callers run {@link #replicate} in a transaction.
+ */
+public class CirculationStore {
+
+    private static final String FIND_BOOK_SQL = """
+            SELECT b.isbn, b.title, b.author, l.id AS loan_id, l.borrower_id, l.borrowed_at
+            FROM books b LEFT JOIN loans l ON l.active_book_id = b.id
+            WHERE b.id = :id""";
+
+    private static final String FIND_BORROWER_SQL =
+            "SELECT name, email, category, active_loan_count FROM borrowers WHERE id = :id";
+
+    private static final String MAX_LOAN_ID_SQL = """
+            SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM loans),
+                            (SELECT COALESCE(MAX(id), 0) FROM loans_archive))""";
+
+    private static final String INSERT_LOAN_SQL = """
+            INSERT INTO loans (id, book_id, borrower_id, book_isbn, book_title, book_author,
+                               borrower_name, borrower_email, status, active_book_id, borrowed_at)
+            SELECT :loanId, b.id, r.id, b.isbn, b.title, b.author, r.name, r.email, 'ACTIVE', b.id, :occurredAt
+            FROM books b JOIN borrowers r ON r.id = :borrowerId
+            WHERE b.id = :bookId AND NOT EXISTS (SELECT 1 FROM loans WHERE id = :loanId)""";
+
+    private static final String RETURN_LOAN_SQL = """
+            UPDATE loans SET status = 'RETURNED', active_book_id = NULL, returned_at = :occurredAt
+            WHERE id = :loanId AND status = 'ACTIVE'""";
+
+    private static final String UPDATE_BOOK_SQL = "UPDATE books SET status = :status WHERE id = :id";
+
+    private static final String UPDATE_BORROWER_SQL = "UPDATE borrowers SET active_loan_count = :count WHERE id = :id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CirculationStore(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    Optional<BookState> findBook(long bookId) {
+        return jdbcTemplate.query(FIND_BOOK_SQL, Map.of("id", bookId), (rs, rowNum) -> {
+            long loanId = rs.getLong("loan_id");
+            ActiveLoan activeLoan = rs.wasNull() ? null : new ActiveLoan(loanId, rs.getLong("borrower_id"),
+                    rs.getObject("borrowed_at", LocalDateTime.class));
+            return new BookState(bookId, rs.getString("isbn"), rs.getString("title"), rs.getString("author"), activeLoan);
+        }).stream().findFirst();
+    }
+
+    Optional<BorrowerState> findBorrower(long borrowerId) {
+        return jdbcTemplate.query(FIND_BORROWER_SQL, Map.of("id", borrowerId), (rs, rowNum) ->
+                new BorrowerState(borrowerId, rs.getString("name"), rs.getString("email"),
+                        BorrowerCategory.valueOf(rs.getString("category")), rs.getInt("active_loan_count"))
+        ).stream().findFirst();
+    }
+
+    long maxLoanId() {
+        Long max = jdbcTemplate.queryForObject(MAX_LOAN_ID_SQL, Map.of(), Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Writes the records in journal order. Consecutive loan statements of the same kind go in one JDBC batch,
+     * books and borrowers only get the last value of the batch.
+     */
+    public void replicate(List<JournalRecord> records) {
+        List<SqlParameterSource> run = new ArrayList<>();
+        String runSql = null;
+        Map<Long, String> bookStatuses = new LinkedHashMap<>();
+        Map<Long, Integer> activeLoanCounts = new LinkedHashMap<>();
+
+        for (JournalRecord record : records) {
+            boolean borrowed = record.type() == LoanEvent.Type.BORROWED;
+            String sql = borrowed ? INSERT_LOAN_SQL : RETURN_LOAN_SQL;
+            if (!sql.equals(runSql)) {
+                batchUpdate(runSql, run);
+                runSql = sql;
+            }
+            run.add(new MapSqlParameterSource()
+                    .addValue("loanId", record.loanId())
+                    .addValue("bookId", record.bookId())
+                    .addValue("borrowerId", record.borrowerId())
+                    .addValue("occurredAt", record.occurredAt()));
+
+            bookStatuses.put(record.bookId(), (borrowed ? BookStatus.BORROWED : BookStatus.AVAILABLE).name());
+            activeLoanCounts.put(record.borrowerId(), record.borrowerActiveLoans());
+        }
+        batchUpdate(runSql, run);
+
+        bookStatuses.forEach((id, status) -> run.add(new MapSqlParameterSource("id", id).addValue("status", status)));
+        batchUpdate(UPDATE_BOOK_SQL, run);
+        activeLoanCounts.forEach((id, count) -> run.add(new MapSqlParameterSource("id", id).addValue("count", count)));
+        batchUpdate(UPDATE_BORROWER_SQL, run);
+    }
+
+    // Runs and clears the collected parameters
+    private void batchUpdate(String sql, List<SqlParameterSource> params) {
+        if (!params.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, params.toArray(SqlParameterSource[]::new));
+            params.clear();
+        }
+    }
+
+    record ActiveLoan(long loanId, long borrowerId, LocalDateTime borrowedAt) {
+    }
+
+    static final class BookState {
+
+        final long id;
+        final String isbn;
+        final String title;
+        final String author;
+        ActiveLoan activeLoan;
+
+        BookState(long id, String isbn, String title, String author, ActiveLoan activeLoan) {
+            this.id = id;
+            this.isbn = isbn;
+            this.title = title;
+            this.author = author;
+            this.activeLoan = activeLoan;
+        }
+    }
+
+    static final class BorrowerState {
+
+        final long id;
+        final String name;
+        final String email;
+        final BorrowerCategory category;
+        int activeLoans;
+
+        BorrowerState(long id, String name, String email, BorrowerCategory category, int activeLoans) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+            this.category = category;
+            this.activeLoans = activeLoans;
+        }
+    }
+
+}
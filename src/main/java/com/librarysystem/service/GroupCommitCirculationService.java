@@ -0,0 +1,237 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.CirculationProperties;
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.Loan;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.ApiException;
+import com.librarysystem.exception.ServiceUnavailableException;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Commits borrows and returns that arrive close together in one transaction, used instead of {@link LoanService}
+ * when {@code library.circulation.mode=group-commit}.
+ * <p>
+ * Requests queue their command for a dispatcher thread. After the first command it waits up to
+ * {@code library.circulation.group-commit-window} for more, up to {@code group-commit-size}, and runs them through
+ * {@link LoanService} in one transaction, so the batch costs one commit and one redo log flush instead of one per
+ * request. Each command runs after a JDBC savepoint: a command rejected with a 4xx is rolled back to it and its
+ * caller gets the error while the others still commit.
+ * <p>
+ * A savepoint cannot undo a rejection that went through a repository or Hibernate, e.g. the loan insert hitting
+ * {@code uq_loan_active_book}: both mark the whole transaction rollback-only. The batch is then rolled back, that
+ * command runs again alone and the others are committed together again without it. If the transaction fails as
+ * a whole, e.g. on a deadlock or a failed flush, its commands are run again one transaction each so one
+ * bad command does not fail the rest.
+ * <p>
+ * Callers are answered after the commit, so every request waits for at least the window. Row locks taken by a
+ * command are held until the whole batch commits.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "library.circulation.mode", havingValue = "group-commit")
+public class GroupCommitCirculationService implements CirculationService, DisposableBean {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long POLL_MILLIS = 100;
+
+    private final LoanService loanService;
+    private final EntityManager entityManager;
+    private final CirculationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Command> commands;
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    public GroupCommitCirculationService(LoanService loanService, EntityManager entityManager,
+                                         CirculationProperties properties, PlatformTransactionManager transactionManager) {
+        this.loanService = loanService;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commands = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.dispatcher = new Thread(this::dispatch, "circulation-group-commit");
+        this.dispatcher.start();
+    }
+
+    @Override
+    public LoanResponse borrowBook(Long borrowerId, Long bookId) {
+        log.info("Borrow request: borrowerId={}, bookId={}", borrowerId, bookId);
+        return submit(new Command(LoanEvent.Type.BORROWED, borrowerId, bookId, new CompletableFuture<>()));
+    }
+
+    @Override
+    public LoanResponse returnBook(Long borrowerId, Long bookId) {
+        log.info("Return request: borrowerId={}, bookId={}", borrowerId, bookId);
+        return submit(new Command(LoanEvent.Type.RETURNED, borrowerId, bookId, new CompletableFuture<>()));
+    }
+
+    /**
+     * Stops taking commands and commits the ones already queued.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        dispatcher.join();
+    }
+
+    private LoanResponse submit(Command command) {
+        if (!running || !commands.offer(command)) {
+            log.warn("Group commit queue is full, rejecting {} of bookId={}", command.type(), command.bookId());
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        }
+
+        try {
+            return command.result().get(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Circulation command failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            // The command may still commit, a retry then gets 409 or 400 instead of repeating it. An
+            // Idempotency-Key is not stored for a 503, so the retry is not answered with the original response
+            log.warn("Timed out waiting for {} of bookId={}", command.type(), command.bookId());
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        }
+    }
+
+    private void dispatch() {
+        List<Command> batch = new ArrayList<>(properties.groupCommitSize());
+
+        while (running || !commands.isEmpty()) {
+            try {
+                Command first = commands.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + properties.groupCommitWindow().toNanos();
+                while (batch.size() < properties.groupCommitSize()) {
+                    Command next = commands.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Command> batch) {
+        List<Outcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> {
+                List<Outcome> results = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    results.add(runToSavepoint(batch.get(i)));
+                    if (status.isRollbackOnly()) {
+                        throw new RollbackOnlyCommandException(i);
+                    }
+                }
+                return results;
+            });
+        } catch (RollbackOnlyCommandException ex) {
+            log.debug("Command {} of {} marked the group commit rollback-only, running it alone", ex.index, batch.size());
+            List<Command> others = new ArrayList<>(batch);
+            runAlone(others.remove(ex.index));
+            if (!others.isEmpty()) {
+                commit(others);
+            }
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("Group commit of {} commands failed, running them one by one", batch.size(), ex);
+            batch.forEach(this::runAlone);
+            return;
+        }
+
+        log.debug("Group committed {} commands", batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                batch.get(i).result().completeExceptionally(outcome.error());
+            } else {
+                batch.get(i).result().complete(loanService.toLoanResponse(outcome.loan()));
+            }
+        }
+    }
+
+    // Flushes after the command so a later rollback to the next savepoint cannot drop its changes
+    private Outcome runToSavepoint(Command command) {
+        Session session = entityManager.unwrap(Session.class);
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        try {
+            Loan loan = command.type() == LoanEvent.Type.BORROWED
+                    ? loanService.borrow(command.borrowerId(), command.bookId())
+                    : loanService.giveBack(command.borrowerId(), command.bookId());
+            entityManager.flush();
+            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+            return new Outcome(loan, null);
+        } catch (ApiException ex) {
+            session.doWork(connection -> connection.rollback(savepoint));
+            entityManager.clear();
+            return new Outcome(null, ex);
+        }
+    }
+
+    private void runAlone(Command command) {
+        try {
+            command.result().complete(command.type() == LoanEvent.Type.BORROWED
+                    ? loanService.borrowBook(command.borrowerId(), command.bookId())
+                    : loanService.returnBook(command.borrowerId(), command.bookId()));
+        } catch (RuntimeException ex) {
+            command.result().completeExceptionally(ex);
+        }
+    }
+
+    // Rolls back a batch in which a command marked the transaction rollback-only, so it can be run without it
+    private static class RollbackOnlyCommandException extends RuntimeException {
+
+        private final int index;
+
+        RollbackOnlyCommandException(int index) {
+            super(null, null, false, false);
+            this.index = index;
+        }
+    }
+
+    private record Command(LoanEvent.Type type, Long borrowerId, Long bookId, CompletableFuture<LoanResponse> result) {
+    }
+
+    private record Outcome(Loan loan, ApiException error) {
+    }
+
+}
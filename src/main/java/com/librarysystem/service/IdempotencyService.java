@@ -0,0 +1,170 @@
+package com.librarysystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librarysystem.entity.IdempotencyRecord;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response for requests retried with the same {@code Idempotency-Key}.
+ * <p>
+ * Responses are kept in a bounded local cache in front of the {@code idempotency_keys} table, so a retry
+ * on the node that served the original request costs no DB access and a retry on another node costs one
+ * primary key lookup. The key is inserted in the same transaction as the operation it protects, so two
+ * concurrent requests with the same key can never both commit.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, StoredResponse> cache;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${library.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${library.idempotency.cache-max-size:10000}") long cacheMaxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per key and returns its stored response on every retry.
+     *
+     * @param key         value of the {@code Idempotency-Key} header
+     * @param fingerprint description of the request, a retry must send the same one
+     */
+    public <T> T execute(String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        validateKey(key);
+        String requestHash = hash(fingerprint);
+
+        StoredResponse stored = findStoredResponse(key);
+        if (stored != null && !stored.expired()) {
+            if (!stored.requestHash().equals(requestHash)) {
+                log.warn("Idempotency-Key={} reused for a different request", key);
+                throw new BusinessException("Idempotency-Key was already used for a different request");
+            }
+
+            log.info("Replaying stored response for Idempotency-Key={}", key);
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        }
+
+        Executed<T> executed;
+        try {
+            executed = transactionTemplate.execute(status -> {
+                T result = action.get();
+                LocalDateTime now = LocalDateTime.now();
+                if (stored != null) {
+                    // Expired but not purged yet, the insert below would hit its primary key
+                    idempotencyRecordRepository.deleteExpiredKey(key, now);
+                }
+
+                IdempotencyRecord record = IdempotencyRecord.builder()
+                        .key(key)
+                        .requestHash(requestHash)
+                        .responseBody(objectMapper.writeValueAsString(result))
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build();
+                idempotencyRecordRepository.saveAndFlush(record);
+
+                return new Executed<>(result, record.getResponseBody());
+            });
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Concurrent request detected for Idempotency-Key={}", key);
+            throw new DuplicateActionException("A request with this Idempotency-Key is already being processed");
+        }
+
+        cache.put(key, new StoredResponse(requestHash, executed.responseBody()));
+        return executed.response();
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.purge-interval:1h}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private StoredResponse findStoredResponse(String key) {
+        StoredResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return idempotencyRecordRepository.findById(key)
+                .map(record -> {
+                    if (!record.getExpiresAt().isAfter(LocalDateTime.now())) {
+                        return StoredResponse.EXPIRED;
+                    }
+                    StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseBody());
+                    cache.put(key, stored);
+                    return stored;
+                })
+                .orElse(null);
+    }
+
+    private void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private static String hash(String fingerprint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record StoredResponse(String requestHash, String responseBody) {
+
+        // Record left in the table after its ttl until purgeExpired runs
+        static final StoredResponse EXPIRED = new StoredResponse(null, null);
+
+        boolean expired() {
+            return this == EXPIRED;
+        }
+    }
+
+    private record Executed<T>(T response, String responseBody) {
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.librarysystem.service;
+
+/**
+ * Parses ISBN-10 and ISBN-13 into the numeric ISBN-13 stored in {@code books.isbn13}.
+ * <p>
+ * Hyphens and spaces are ignored, so {@code 0-13-468599-7}, {@code 978-0-13-468599-1} and {@code 9780134685991}
+ * are the same title. ISBN-10s are converted by prefixing 978 and recomputing the check digit. Parsing walks the
+ * characters once and does not allocate.
+ */
+public final class Isbn {
+
+    public static final long INVALID = -1;
+
+    private static final long ISBN10_PREFIX = 978_000_000_000L;
+
+    private Isbn() {
+    }
+
+    /**
+     * @return the ISBN-13 as a number, or {@link #INVALID} if {@code text} is not an ISBN-10 or ISBN-13 with a
+     * correct check digit
+     */
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+
+            int digit;
+            if (c >= '0' && c <= '9' && !checkX) {
+                digit = c - '0';
+            } else if ((c == 'X' || c == 'x') && digits == 9) {
+                // Only valid as the check digit of an ISBN-10
+                digit = 10;
+                checkX = true;
+            } else {
+                return INVALID;
+            }
+
+            if (++digits > 13) {
+                return INVALID;
+            }
+            // An X check digit is kept as 0, only the first nine digits of an ISBN-10 are used
+            value = value * 10 + (checkX ? 0 : digit);
+            if (digits <= 10) {
+                sum10 += (11 - digits) * digit;
+            }
+            sum13 += (digits % 2 == 0 ? 3 : 1) * digit;
+        }
+
+        if (digits == 13) {
+            long prefix = value / 10_000_000_000L;
+            return (prefix == 978 || prefix == 979) && sum13 % 10 == 0 ? value : INVALID;
+        }
+        if (digits == 10 && sum10 % 11 == 0) {
+            long withoutCheck = ISBN10_PREFIX + value / 10;
+            return withoutCheck * 10 + checkDigit13(withoutCheck);
+        }
+        return INVALID;
+    }
+
+    /**
+     * @return the 13 digits of {@code isbn13} without separators
+     */
+    public static String format(long isbn13) {
+        return Long.toString(isbn13);
+    }
+
+    private static int checkDigit13(long first12) {
+        int sum = 0;
+        // The rightmost of the first 12 digits has weight 3
+        for (int weight = 3; first12 > 0; first12 /= 10, weight = 4 - weight) {
+            sum += weight * (int) (first12 % 10);
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.librarysystem.service;
+
+import com.librarysystem.event.LoanEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * One borrow or return written to the {@link CirculationJournal}. Holds absolute values, the loan id and the
+ * borrower's active loan count after the command, so replicating a record twice leaves the same rows.
+ */
+public record JournalRecord(long sequence,
+                            LoanEvent.Type type,
+                            long loanId,
+                            long bookId,
+                            long borrowerId,
+                            int borrowerActiveLoans,
+                            LocalDateTime occurredAt) {
+}
@@ -0,0 +1,420 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.CirculationProperties;
+import com.librarysystem.config.LoanLimitProperties;
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.exception.ResourceNotFoundException;
+import com.librarysystem.exception.ServiceUnavailableException;
+import com.librarysystem.service.CirculationStore.ActiveLoan;
+import com.librarysystem.service.CirculationStore.BookState;
+import com.librarysystem.service.CirculationStore.BorrowerState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Borrows and returns books against in-memory state owned by one writer thread, used instead of
+ * {@link LoanService} when {@code library.circulation.mode=journal}.
+ * <p>
+ * Requests queue commands for the writer, which applies them in batches: each command is checked and applied to
+ * the books and borrowers it has in memory, loading them from the database on first use, and appended to the
+ * {@link CirculationJournal}. The journal is forced once per batch and only then are the callers answered. A
+ * second thread replicates the journaled records to the database in one transaction per batch and publishes the
+ * {@link LoanEvent}s in it, so listeners see them after the rows are committed. On startup the records left in the
+ * journal are replicated before any command is accepted.
+ * <p>
+ * The engine assumes it is the only writer of circulation state, so it must not run on more than one instance.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "library.circulation.mode", havingValue = "journal")
+public class JournaledCirculationService implements CirculationService, DisposableBean {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long POLL_MILLIS = 100;
+
+    private final CirculationStore store;
+    private final LoanLimitProperties loanLimits;
+    private final CirculationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final BlockingQueue<Command> commands;
+    private final BlockingQueue<Replication> replications = new LinkedBlockingQueue<>();
+    // Sequence of the last record committed by the replicator
+    private final AtomicLong replicated = new AtomicLong();
+
+    // Owned by the writer thread once started
+    private final Map<Long, BookState> books = new HashMap<>();
+    private final Map<Long, BorrowerState> borrowers = new HashMap<>();
+    private CirculationJournal journal;
+    private long nextLoanId;
+    // Sequence of the last record forced and answered
+    private long journaled;
+
+    private volatile boolean running;
+    private Thread writer;
+    private Thread replicator;
+
+    @Autowired
+    public JournaledCirculationService(NamedParameterJdbcTemplate jdbcTemplate, LoanLimitProperties loanLimits,
+                                       CirculationProperties properties, PlatformTransactionManager transactionManager,
+                                       ApplicationEventPublisher eventPublisher) {
+        this(new CirculationStore(jdbcTemplate), loanLimits, properties, transactionManager, eventPublisher);
+    }
+
+    JournaledCirculationService(CirculationStore store, LoanLimitProperties loanLimits, CirculationProperties properties,
+                                PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+        this.store = store;
+        this.loanLimits = loanLimits;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.commands = new ArrayBlockingQueue<>(properties.queueCapacity());
+    }
+
+    /**
+     * Replays the journal left by the previous run and starts the writer and replicator threads. Runs once the
+     * application is ready, until then commands are answered with 503.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (writer != null) {
+            return;
+        }
+
+        journal = new CirculationJournal(properties.journalPath(), properties.journalSize().toBytes());
+        List<JournalRecord> pending = journal.readAll();
+        if (!pending.isEmpty()) {
+            log.info("Replicating {} circulation journal records left by the previous run", pending.size());
+            for (int from = 0; from < pending.size(); from += properties.batchSize()) {
+                List<JournalRecord> batch = pending.subList(from, Math.min(from + properties.batchSize(), pending.size()));
+                transactionTemplate.executeWithoutResult(status -> store.replicate(batch));
+            }
+        }
+        journaled = journal.lastSequence();
+        replicated.set(journaled);
+        journal.release(journaled);
+        journal.force();
+        nextLoanId = store.maxLoanId() + 1;
+
+        running = true;
+        writer = new Thread(this::runWriter, "circulation-writer");
+        replicator = new Thread(this::runReplicator, "circulation-replicator");
+        writer.start();
+        replicator.start();
+        log.info("Journaled circulation started, journal={}, nextLoanId={}", properties.journalPath(), nextLoanId);
+    }
+
+    @Override
+    public LoanResponse borrowBook(Long borrowerId, Long bookId) {
+        return submit(LoanEvent.Type.BORROWED, borrowerId, bookId);
+    }
+
+    @Override
+    public LoanResponse returnBook(Long borrowerId, Long bookId) {
+        return submit(LoanEvent.Type.RETURNED, borrowerId, bookId);
+    }
+
+    /**
+     * Stops taking commands, lets the writer finish the queued ones and gives the replicator a few seconds to
+     * catch up. Records it does not get to stay in the journal for the next start.
+     */
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+        replicator.join(TimeUnit.SECONDS.toMillis(10));
+        journal.release(replicated.get());
+        journal.force();
+        if (replicated.get() != journaled) {
+            log.warn("Stopped with {} circulation journal records not replicated", journaled - replicated.get());
+        }
+        journal.close();
+    }
+
+    private LoanResponse submit(LoanEvent.Type type, Long borrowerId, Long bookId) {
+        log.info("{} request: borrowerId={}, bookId={}", type == LoanEvent.Type.BORROWED ? "Borrow" : "Return",
+                borrowerId, bookId);
+
+        if (!running) {
+            throw new ServiceUnavailableException("Circulation is not running, please retry", RETRY_AFTER);
+        }
+
+        Command command = new Command(type, borrowerId, bookId, new CompletableFuture<>());
+        if (!commands.offer(command)) {
+            log.warn("Circulation queue is full, rejecting {} of bookId={}", type, bookId);
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        }
+
+        try {
+            return command.result().get(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Circulation command failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            // The command may still be applied, a retry then gets 409 or 400 instead of repeating it. An
+            // Idempotency-Key is not stored for a 503, so the retry is not answered with the original response
+            log.warn("Timed out waiting for {} of bookId={}", type, bookId);
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        }
+    }
+
+    private void runWriter() {
+        List<Command> batch = new ArrayList<>(properties.batchSize());
+        List<Applied> applied = new ArrayList<>(properties.batchSize());
+
+        while (running || !commands.isEmpty()) {
+            try {
+                Command first = commands.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            commands.drainTo(batch, properties.batchSize() - 1);
+
+            journal.release(replicated.get());
+
+            for (Command command : batch) {
+                try {
+                    applied.add(apply(command));
+                } catch (RuntimeException ex) {
+                    command.result().completeExceptionally(ex);
+                }
+            }
+
+            if (!applied.isEmpty() && !commit(applied)) {
+                break;
+            }
+            batch.clear();
+            applied.clear();
+        }
+
+        running = false;
+        rejectQueued();
+    }
+
+    // Forces the journal and answers the callers, or stops the engine if the journal cannot be written
+    private boolean commit(List<Applied> applied) {
+        try {
+            if (properties.journalForce()) {
+                journal.force();
+            }
+        } catch (RuntimeException ex) {
+            log.error("Could not force the circulation journal, stopping circulation", ex);
+            for (Applied entry : applied) {
+                entry.command().result().completeExceptionally(
+                        new ServiceUnavailableException("Circulation is not running, please retry", RETRY_AFTER));
+            }
+            return false;
+        }
+
+        journaled = applied.get(applied.size() - 1).record().sequence();
+        for (Applied entry : applied) {
+            replications.add(new Replication(entry.record(), entry.event()));
+            entry.command().result().complete(entry.response());
+        }
+        return true;
+    }
+
+    private void rejectQueued() {
+        Command command;
+        while ((command = commands.poll()) != null) {
+            command.result().completeExceptionally(
+                    new ServiceUnavailableException("Circulation is not running, please retry", RETRY_AFTER));
+        }
+    }
+
+    private Applied apply(Command command) {
+        BorrowerState borrower = borrowers.get(command.borrowerId());
+        if (borrower == null) {
+            borrower = store.findBorrower(command.borrowerId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Borrower not found with id: " + command.borrowerId()));
+            borrowers.put(borrower.id, borrower);
+        }
+
+        BookState book = books.get(command.bookId());
+        if (book == null) {
+            book = store.findBook(command.bookId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + command.bookId()));
+            books.put(book.id, book);
+        }
+
+        return command.type() == LoanEvent.Type.BORROWED
+                ? borrow(command, borrower, book)
+                : giveBack(command, borrower, book);
+    }
+
+    private Applied borrow(Command command, BorrowerState borrower, BookState book) {
+        if (book.activeLoan != null) {
+            log.warn("Book id={} is already on an active loan", book.id);
+            throw new DuplicateActionException("Book is already borrowed");
+        }
+
+        int limit = loanLimits.maxActiveFor(borrower.category);
+        if (borrower.activeLoans >= limit) {
+            log.warn("Borrower id={} already has {} active loans", borrower.id, limit);
+            throw new BusinessException("Borrower has reached the limit of " + limit + " active loans");
+        }
+        requireJournalRoom();
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        ActiveLoan loan = new ActiveLoan(nextLoanId++, borrower.id, now);
+        book.activeLoan = loan;
+        borrower.activeLoans++;
+
+        JournalRecord record = journal.append(LoanEvent.Type.BORROWED, loan.loanId(), book.id, borrower.id,
+                borrower.activeLoans, now);
+        return applied(command, record, book, borrower, loan, null);
+    }
+
+    private Applied giveBack(Command command, BorrowerState borrower, BookState book) {
+        ActiveLoan loan = book.activeLoan;
+        if (loan == null) {
+            log.warn("Attempt to return bookId={} which is already AVAILABLE", book.id);
+            throw new BusinessException("Book is not currently borrowed");
+        }
+
+        if (loan.borrowerId() != borrower.id) {
+            log.warn("Borrower id={} attempted to return book id={} currently borrowed by id={}",
+                    borrower.id, book.id, loan.borrowerId());
+            throw new BusinessException("This book is currently borrowed by a different person");
+        }
+        requireJournalRoom();
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        book.activeLoan = null;
+        borrower.activeLoans = Math.max(0, borrower.activeLoans - 1);
+
+        JournalRecord record = journal.append(LoanEvent.Type.RETURNED, loan.loanId(), book.id, borrower.id,
+                borrower.activeLoans, now);
+        return applied(command, record, book, borrower, loan, now);
+    }
+
+    private void requireJournalRoom() {
+        if (!journal.hasRoom()) {
+            log.warn("Circulation journal is full, {} records waiting for replication", journaled - replicated.get());
+            throw new ServiceUnavailableException("Circulation is busy, please retry", RETRY_AFTER);
+        }
+    }
+
+    private static Applied applied(Command command, JournalRecord record, BookState book, BorrowerState borrower,
+                                   ActiveLoan loan, LocalDateTime returnedAt) {
+        LoanResponse response = LoanResponse.builder()
+                .id(loan.loanId())
+                .bookId(book.id)
+                .bookIsbn(book.isbn)
+                .bookTitle(book.title)
+                .bookAuthor(book.author)
+                .borrowerId(borrower.id)
+                .borrowerName(borrower.name)
+                .borrowerEmail(borrower.email)
+                .status(returnedAt == null ? LoanStatus.ACTIVE : LoanStatus.RETURNED)
+                .borrowedAt(loan.borrowedAt())
+                .returnedAt(returnedAt)
+                .build();
+        LoanEvent event = new LoanEvent(record.type(), loan.loanId(), book.id, book.isbn, book.title, book.author,
+                borrower.id, record.occurredAt());
+        return new Applied(command, record, response, event);
+    }
+
+    private void runReplicator() {
+        List<Replication> batch = new ArrayList<>(properties.batchSize());
+
+        while (writer.isAlive() || !replications.isEmpty()) {
+            try {
+                Replication first = replications.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            replications.drainTo(batch, properties.batchSize() - 1);
+
+            List<JournalRecord> records = batch.stream().map(Replication::record).toList();
+            while (!replicate(batch, records)) {
+                if (!running) {
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_AFTER.toMillis());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            replicated.set(records.get(records.size() - 1).sequence());
+            batch.clear();
+        }
+    }
+
+    private boolean replicate(List<Replication> batch, List<JournalRecord> records) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                store.replicate(records);
+                batch.forEach(replication -> eventPublisher.publishEvent(replication.event()));
+            });
+            return true;
+        } catch (RuntimeException ex) {
+            log.error("Replicating {} circulation journal records failed, retrying", records.size(), ex);
+            return false;
+        }
+    }
+
+    private record Command(LoanEvent.Type type, Long borrowerId, Long bookId, CompletableFuture<LoanResponse> result) {
+    }
+
+    private record Applied(Command command, JournalRecord record, LoanResponse response, LoanEvent event) {
+    }
+
+    private record Replication(JournalRecord record, LoanEvent event) {
+    }
+
+}
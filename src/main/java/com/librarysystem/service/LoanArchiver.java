@@ -0,0 +1,107 @@
+package com.librarysystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves loans returned more than {@code library.loans.archive.retention} ago from {@code loans} to
+ * {@code loans_archive}, so the table and indexes used by borrow and return only hold recent history.
+ * <p>
+ * Each batch copies and deletes up to {@code batch-size} loans in one short transaction, with a pause between
+ * batches so archiving a large backlog does not compete with circulation for locks and I/O.
+ */
+@Slf4j
+@Component
+public class LoanArchiver {
+
+    private static final String SELECT_BATCH_SQL = """
+            SELECT id FROM loans
+            WHERE status = 'RETURNED' AND returned_at < :cutoff
+            ORDER BY id
+            LIMIT :limit""";
+
+    private static final String COPY_BATCH_SQL = """
+            INSERT INTO loans_archive (id, book_id, borrower_id, book_isbn, book_title, book_author,
+                                       borrower_name, borrower_email, status, borrowed_at, returned_at, archived_at)
+            SELECT id, book_id, borrower_id, book_isbn, book_title, book_author,
+                   borrower_name, borrower_email, status, borrowed_at, returned_at, :archivedAt
+            FROM loans WHERE id IN (:ids)""";
+
+    private static final String DELETE_BATCH_SQL = "DELETE FROM loans WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    public LoanArchiver(NamedParameterJdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${library.loans.archive.retention:365d}") Duration retention,
+                        @Value("${library.loans.archive.batch-size:1000}") int batchSize,
+                        @Value("${library.loans.archive.batch-pause:200ms}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    @Scheduled(fixedDelayString = "${library.loans.archive.interval:1h}",
+            initialDelayString = "${library.loans.archive.initial-delay:5m}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long archived = 0;
+
+        try {
+            int moved;
+            do {
+                moved = archiveBatch(cutoff);
+                archived += moved;
+                if (moved == batchSize) {
+                    Thread.sleep(batchPause.toMillis());
+                }
+            } while (moved == batchSize);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance archived the same loans, it will carry on with the rest
+            log.warn("Loan archiving stopped, loans were already archived by another instance");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} loans returned before {}", archived, cutoff);
+        }
+    }
+
+    int archiveBatch(LocalDateTime cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, new MapSqlParameterSource()
+                    .addValue("cutoff", cutoff)
+                    .addValue("limit", batchSize), Long.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("archivedAt", LocalDateTime.now());
+            jdbcTemplate.update(COPY_BATCH_SQL, params);
+            jdbcTemplate.update(DELETE_BATCH_SQL, params);
+            return ids.size();
+        });
+        return moved != null ? moved : 0;
+    }
+
+}
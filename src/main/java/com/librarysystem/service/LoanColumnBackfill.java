@@ -0,0 +1,79 @@
+package com.librarysystem.service;
+
+import com.librarysystem.repository.BorrowerRepository;
+import com.librarysystem.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills columns added to {@code loans} for rows created before those columns existed: the book and borrower
+ * snapshot, and {@code active_book_id} of active loans. Then counts each borrower's active loans into
+ * {@code borrowers.active_loan_count}.
+ * <p>
+ * Runs once the app is ready. Snapshots are updated in id ranges of {@value #BATCH_SIZE} loans per transaction,
+ * so an existing {@code loans} table is not locked in one long statement. There is at most one active loan per
+ * book, so those and the borrower counts are updated in one statement each. New loans and borrowers are already
+ * up to date, so after the first run this is a few index lookups.
+ */
+@Slf4j
+@Component
+public class LoanColumnBackfill {
+
+    static final int BATCH_SIZE = 10_000;
+
+    private final LoanRepository loanRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LoanColumnBackfill(LoanRepository loanRepository, BorrowerRepository borrowerRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.loanRepository = loanRepository;
+        this.borrowerRepository = borrowerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        backfillActiveBookIds();
+        backfillActiveLoanCounts();
+        backfillSnapshots();
+    }
+
+    void backfillActiveBookIds() {
+        int updated = transactionTemplate.execute(status -> loanRepository.backfillActiveBookIds());
+        if (updated > 0) {
+            log.info("Backfilled active_book_id of {} active loans", updated);
+        }
+    }
+
+    // Reads active_book_id, so runs after backfillActiveBookIds
+    void backfillActiveLoanCounts() {
+        int updated = transactionTemplate.execute(status -> borrowerRepository.backfillActiveLoanCounts());
+        if (updated > 0) {
+            log.info("Backfilled active_loan_count of {} borrowers", updated);
+        }
+    }
+
+    void backfillSnapshots() {
+        // Read-write transaction so the range comes from the primary, not a lagging replica
+        Long minId = transactionTemplate.execute(status -> loanRepository.findMinIdWithoutSnapshot().orElse(null));
+        if (minId == null) {
+            return;
+        }
+        Long maxId = transactionTemplate.execute(status -> loanRepository.findMaxIdWithoutSnapshot().orElseThrow());
+
+        log.info("Backfilling loan snapshots for ids {} to {}", minId, maxId);
+        int updated = 0;
+        for (long start = minId; start <= maxId; start += BATCH_SIZE) {
+            long fromId = start;
+            long toId = Math.min(start + BATCH_SIZE - 1, maxId);
+            updated += transactionTemplate.execute(status -> loanRepository.backfillSnapshots(fromId, toId));
+        }
+        log.info("Backfilled snapshots of {} loans", updated);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.exception.ResourceNotFoundException;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Loan history of a borrower or a book, read from both {@code loans} and {@code loans_archive} so callers do not
+ * see when a loan is archived. Each page is one {@code UNION ALL} over the two tables, newest loan first.
+ */
+@Slf4j
+@Service
+public class LoanHistoryService {
+
+    private static final String LOAN_COLUMNS = "id, book_id, borrower_id, book_isbn, book_title, book_author, " +
+            "borrower_name, borrower_email, status, borrowed_at, returned_at";
+
+    private static final String BORROWER_LOANS_SQL = pageSql("borrower_id");
+    private static final String BORROWER_LOANS_COUNT_SQL = countSql("borrower_id");
+    private static final String BOOK_LOANS_SQL = pageSql("book_id");
+    private static final String BOOK_LOANS_COUNT_SQL = countSql("book_id");
+
+    private static final RowMapper<LoanResponse> LOAN_RESPONSE_MAPPER = (rs, rowNum) -> {
+        Timestamp returnedAt = rs.getTimestamp("returned_at");
+        return LoanResponse.builder()
+                .id(rs.getLong("id"))
+                .bookId(rs.getLong("book_id"))
+                .bookIsbn(rs.getString("book_isbn"))
+                .bookTitle(rs.getString("book_title"))
+                .bookAuthor(rs.getString("book_author"))
+                .borrowerId(rs.getLong("borrower_id"))
+                .borrowerName(rs.getString("borrower_name"))
+                .borrowerEmail(rs.getString("borrower_email"))
+                .status(LoanStatus.valueOf(rs.getString("status")))
+                .borrowedAt(rs.getTimestamp("borrowed_at").toLocalDateTime())
+                .returnedAt(returnedAt != null ? returnedAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BorrowerRepository borrowerRepository;
+    private final BookRepository bookRepository;
+
+    public LoanHistoryService(NamedParameterJdbcTemplate jdbcTemplate, BorrowerRepository borrowerRepository,
+                              BookRepository bookRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.borrowerRepository = borrowerRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<LoanResponse> getBorrowerLoans(Long borrowerId, Pageable pageable) {
+        log.info("Fetching loans of borrowerId={}", borrowerId);
+        if (!borrowerRepository.existsById(borrowerId)) {
+            throw new ResourceNotFoundException("Borrower not found with id: " + borrowerId);
+        }
+        return findLoans(BORROWER_LOANS_SQL, BORROWER_LOANS_COUNT_SQL, borrowerId, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<LoanResponse> getBookLoans(Long bookId, Pageable pageable) {
+        log.info("Fetching loans of bookId={}", bookId);
+        if (!bookRepository.existsById(bookId)) {
+            throw new ResourceNotFoundException("Book not found with id: " + bookId);
+        }
+        return findLoans(BOOK_LOANS_SQL, BOOK_LOANS_COUNT_SQL, bookId, pageable);
+    }
+
+    private Page<LoanResponse> findLoans(String pageSql, String countSql, Long id, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset());
+
+        List<LoanResponse> loans = jdbcTemplate.query(pageSql, params, LOAN_RESPONSE_MAPPER);
+        Long total = jdbcTemplate.queryForObject(countSql, params, Long.class);
+        return new PageImpl<>(loans, pageable, total != null ? total : 0);
+    }
+
+    private static String pageSql(String column) {
+        return "SELECT " + LOAN_COLUMNS + " FROM loans WHERE " + column + " = :id " +
+                "UNION ALL " +
+                "SELECT " + LOAN_COLUMNS + " FROM loans_archive WHERE " + column + " = :id " +
+                "ORDER BY borrowed_at DESC, id DESC LIMIT :limit OFFSET :offset";
+    }
+
+    private static String countSql(String column) {
+        return "SELECT (SELECT COUNT(*) FROM loans WHERE " + column + " = :id) + " +
+                "(SELECT COUNT(*) FROM loans_archive WHERE " + column + " = :id)";
+    }
+
+}
@@ -1,71 +1,139 @@
 package com.librarysystem.service;
 
+import com.librarysystem.config.LoanLimitProperties;
 import com.librarysystem.dto.response.LoanResponse;
 import com.librarysystem.entity.Book;
 import com.librarysystem.entity.Borrower;
 import com.librarysystem.entity.Loan;
 import com.librarysystem.entity.enums.BookStatus;
 import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
 import com.librarysystem.exception.BusinessException;
 import com.librarysystem.exception.DuplicateActionException;
 import com.librarysystem.exception.ResourceNotFoundException;
+import com.librarysystem.exception.ServiceUnavailableException;
 import com.librarysystem.repository.BookRepository;
 import com.librarysystem.repository.BorrowerRepository;
 import com.librarysystem.repository.LoanRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 
 @Slf4j
 @Service
-public class LoanService {
+public class LoanService implements CirculationService {
 
     private final LoanRepository loanRepository;
     private final BookRepository bookRepository;
     private final BorrowerRepository borrowerRepository;
-
-    public LoanService(LoanRepository loanRepository, BookRepository bookRepository, BorrowerRepository borrowerRepository) {
+    private final BookLockMonitor bookLockMonitor;
+    private final BookLockTimeout bookLockTimeout;
+    private final LoanLimitProperties loanLimits;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LoanService(LoanRepository loanRepository, BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                       BookLockMonitor bookLockMonitor, BookLockTimeout bookLockTimeout, LoanLimitProperties loanLimits,
+                       PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
         this.loanRepository = loanRepository;
         this.bookRepository = bookRepository;
         this.borrowerRepository = borrowerRepository;
+        this.bookLockMonitor = bookLockMonitor;
+        this.bookLockTimeout = bookLockTimeout;
+        this.loanLimits = loanLimits;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
     }
 
-    @Transactional
+    /**
+     * Borrows a book. Lookups run before the book row is locked by {@link BookRepository#markBorrowed}, and the
+     * response is built after commit, so the lock is only held for the status flip and the loan insert.
+     * <p>
+     * The borrower's loan limit is checked by {@link BorrowerRepository#incrementActiveLoans} in the same
+     * transaction, after the book. {@link #returnBook} locks the loan first and then also writes the book before
+     * the borrower, so a borrow and a return never wait on each other's rows in opposite order.
+     * <p>
+     * Both wait for these row locks for at most {@link BookLockTimeout}, a timeout on any of them is a 503.
+     */
+    @Override
     public LoanResponse borrowBook(Long borrowerId, Long bookId) {
         log.info("Borrow request: borrowerId={}, bookId={}", borrowerId, bookId);
 
+        Loan saved = transactionTemplate.execute(status -> borrow(borrowerId, bookId));
+        return toLoanResponse(saved);
+    }
+
+    @Override
+    @Transactional
+    public LoanResponse returnBook(Long borrowerId, Long bookId) {
+        log.info("Return request: borrowerId={}, bookId={}", borrowerId, bookId);
+
+        return toLoanResponse(giveBack(borrowerId, bookId));
+    }
+
+    /**
+     * Body of {@link #borrowBook}, runs in the caller's transaction.
+     */
+    Loan borrow(Long borrowerId, Long bookId) {
         Borrower borrower = borrowerRepository.findById(borrowerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Borrower not found with id: " + borrowerId));
 
-        Book book = bookRepository.findByIdForUpdate(bookId)
+        Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
 
-        // Check availability
-        if (book.getStatus() == BookStatus.BORROWED) {
-            log.warn("Book id={} is already on an active loan", book.getId());
-            throw new DuplicateActionException("Book is already borrowed");
+        bookLockTimeout.apply();
+        int limit = loanLimits.maxActiveFor(borrower.getCategory());
+        try {
+            // Availability check and update in one statement, the row stays locked from here until commit
+            if (bookRepository.markBorrowed(bookId) == 0) {
+                log.warn("Book id={} is already on an active loan", bookId);
+                throw new DuplicateActionException("Book is already borrowed");
+            }
+
+            if (borrowerRepository.incrementActiveLoans(borrowerId, limit) == 0) {
+                log.warn("Borrower id={} already has {} active loans", borrowerId, limit);
+                throw new BusinessException("Borrower has reached the limit of " + limit + " active loans");
+            }
+        } catch (PessimisticLockingFailureException ex) {
+            throw lockTimedOut(bookId);
         }
 
         Loan loan = Loan.builder()
                 .book(book)
                 .borrower(borrower)
+                .bookIsbn(book.getIsbn())
+                .bookTitle(book.getTitle())
+                .bookAuthor(book.getAuthor())
+                .borrowerName(borrower.getName())
+                .borrowerEmail(borrower.getEmail())
                 .status(LoanStatus.ACTIVE)
+                .activeBookId(bookId)
                 .borrowedAt(LocalDateTime.now())
                 .build();
-        Loan saved = loanRepository.save(loan);
-
-        book.setStatus(BookStatus.BORROWED);
-        bookRepository.save(book);
+        Loan created;
+        try {
+            created = loanRepository.save(loan);
+        } catch (DataIntegrityViolationException ex) {
+            // uq_loan_active_book, the book was marked available while it still had an active loan
+            log.error("Book id={} already has an active loan although it was available", bookId);
+            throw new DuplicateActionException("Book is already borrowed");
+        }
 
-        return toLoanResponse(saved);
+        eventPublisher.publishEvent(LoanEvent.borrowed(created));
+        return created;
     }
 
-    @Transactional
-    public LoanResponse returnBook(Long borrowerId, Long bookId) {
-        log.info("Return request: borrowerId={}, bookId={}", borrowerId, bookId);
-
+    /**
+     * Body of {@link #returnBook}, runs in the caller's transaction.
+     */
+    Loan giveBack(Long borrowerId, Long bookId) {
         Borrower borrower = borrowerRepository.findById(borrowerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Borrower not found with id: " + borrowerId));
 
@@ -77,7 +145,7 @@ public class LoanService {
             throw new BusinessException("Book is not currently borrowed");
         }
 
-        Loan activeLoan = loanRepository.findByBookAndStatus(book, LoanStatus.ACTIVE)
+        Loan activeLoan = loanRepository.findByActiveBookId(bookId)
                 .orElseThrow(() -> {
                     log.warn("Attempt to return a book that is not currently on active loan, bookId={}", bookId);
                     return new BusinessException("Book is not currently borrowed");
@@ -89,29 +157,49 @@ public class LoanService {
             throw new BusinessException("This book is currently borrowed by a different person");
         }
 
-        activeLoan.setStatus(LoanStatus.RETURNED);
-        activeLoan.setReturnedAt(LocalDateTime.now());
-        Loan updated = loanRepository.save(activeLoan);
+        bookLockTimeout.apply();
+        LocalDateTime returnedAt = LocalDateTime.now();
+        try {
+            // Only one of two concurrent returns of the loan gets past here, the other would count the return twice
+            if (loanRepository.markReturned(activeLoan.getId(), returnedAt) == 0) {
+                log.warn("Loan id={} of bookId={} was returned concurrently", activeLoan.getId(), bookId);
+                throw new BusinessException("Book is not currently borrowed");
+            }
+            bookRepository.markAvailable(bookId);
+
+            if (borrowerRepository.decrementActiveLoans(borrowerId) == 0) {
+                // Loan made before active_loan_count was backfilled
+                log.warn("Active loan count of borrower id={} was already 0", borrowerId);
+            }
+        } catch (PessimisticLockingFailureException ex) {
+            throw lockTimedOut(bookId);
+        }
 
-        book.setStatus(BookStatus.AVAILABLE);
-        bookRepository.save(book);
+        // Detached by the updates above, set for the response and the event only
+        activeLoan.setStatus(LoanStatus.RETURNED);
+        activeLoan.setActiveBookId(null);
+        activeLoan.setReturnedAt(returnedAt);
 
-        return toLoanResponse(updated);
+        eventPublisher.publishEvent(LoanEvent.returned(activeLoan));
+        return activeLoan;
     }
 
-    private LoanResponse toLoanResponse(Loan loan) {
-        Book book = loan.getBook();
-        Borrower borrower = loan.getBorrower();
+    private ServiceUnavailableException lockTimedOut(Long bookId) {
+        log.warn("Timed out waiting for lock on book id={}", bookId);
+        return bookLockMonitor.lockTimedOut(bookId);
+    }
 
+    // Reads only loan columns, getId() on the lazy book and borrower does not initialize them
+    LoanResponse toLoanResponse(Loan loan) {
         return LoanResponse.builder()
                 .id(loan.getId())
-                .bookId(book.getId())
-                .bookIsbn(book.getIsbn())
-                .bookTitle(book.getTitle())
-                .bookAuthor(book.getAuthor())
-                .borrowerId(borrower.getId())
-                .borrowerName(borrower.getName())
-                .borrowerEmail(borrower.getEmail())
+                .bookId(loan.getBook().getId())
+                .bookIsbn(loan.getBookIsbn())
+                .bookTitle(loan.getBookTitle())
+                .bookAuthor(loan.getBookAuthor())
+                .borrowerId(loan.getBorrower().getId())
+                .borrowerName(loan.getBorrowerName())
+                .borrowerEmail(loan.getBorrowerEmail())
                 .status(loan.getStatus())
                 .borrowedAt(loan.getBorrowedAt())
                 .returnedAt(loan.getReturnedAt())
@@ -0,0 +1,73 @@
+package com.librarysystem.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters summary (Metwally et al.) over at most {@code capacity} keys.
+ * <p>
+ * Each tracked key has a count that over-estimates its true frequency by at most {@code error}. When a new key
+ * arrives while full, the key with the smallest count is replaced and the new key inherits that count as its
+ * error, so any key seen more than {@code total / capacity} times is guaranteed to be tracked.
+ * Not thread safe.
+ */
+class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Entry> entries;
+
+    SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key, String title, String author) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.count++;
+            return;
+        }
+
+        if (entries.size() < capacity) {
+            entries.put(key, new Entry(key, title, author, 1, 0));
+            return;
+        }
+
+        // Evicting is a scan, but only happens for keys outside the top capacity
+        Entry min = null;
+        for (Entry candidate : entries.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        entries.remove(min.key);
+        entries.put(key, new Entry(key, title, author, min.count + 1, min.count));
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    static final class Entry {
+
+        final String key;
+        final String title;
+        final String author;
+        long count;
+        final long error;
+
+        Entry(String key, String title, String author, long count, long error) {
+            this.key = key;
+            this.title = title;
+            this.author = author;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.TrendingTitleResponse;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most borrowed ISBNs over the last hour, day and week, answered from memory.
+ * <p>
+ * Each window is a ring of {@link SpaceSavingSketch} buckets, e.g. the last day is 24 one-hour buckets. A
+ * committed borrow increments the current bucket of each window, and a query merges the buckets still inside
+ * the window. Memory is bounded by {@code library.trending.capacity} keys per bucket. Counts are estimates that
+ * can be slightly high, and are per instance.
+ */
+@Component
+public class TrendingTitles {
+
+    public enum Window {
+
+        HOUR(Duration.ofMinutes(5), 12),
+        DAY(Duration.ofHours(1), 24),
+        WEEK(Duration.ofDays(1), 7);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(Duration bucket, int buckets) {
+            this.bucketMillis = bucket.toMillis();
+            this.buckets = buckets;
+        }
+    }
+
+    private final int capacity;
+    private final Clock clock;
+    private final Map<Window, Ring> rings = new HashMap<>();
+
+    @Autowired
+    public TrendingTitles(@Value("${library.trending.capacity:100}") int capacity) {
+        this(capacity, Clock.systemUTC());
+    }
+
+    TrendingTitles(int capacity, Clock clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+        for (Window window : Window.values()) {
+            rings.put(window, new Ring(window, capacity));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onLoanEvent(LoanEvent event) {
+        if (event.type() != LoanEvent.Type.BORROWED || event.isbn() == null) {
+            return;
+        }
+
+        long now = clock.millis();
+        for (Ring ring : rings.values()) {
+            ring.add(now, event.isbn(), event.title(), event.author());
+        }
+    }
+
+    public List<TrendingTitleResponse> top(Window window, int n) {
+        if (n < 1 || n > capacity) {
+            throw new BusinessException("n must be between 1 and " + capacity);
+        }
+
+        return rings.get(window).merged(clock.millis()).values().stream()
+                .sorted(Comparator.comparingLong(TrendingTitleResponse::getBorrows).reversed()
+                        .thenComparing(TrendingTitleResponse::getIsbn))
+                .limit(n)
+                .toList();
+    }
+
+    private static final class Ring {
+
+        private final Window window;
+        private final SpaceSavingSketch[] sketches;
+        private final long[] bucketEpochs;
+
+        Ring(Window window, int capacity) {
+            this.window = window;
+            this.sketches = new SpaceSavingSketch[window.buckets];
+            this.bucketEpochs = new long[window.buckets];
+            for (int i = 0; i < window.buckets; i++) {
+                sketches[i] = new SpaceSavingSketch(capacity);
+                bucketEpochs[i] = -1;
+            }
+        }
+
+        synchronized void add(long now, String isbn, String title, String author) {
+            long epoch = now / window.bucketMillis;
+            int index = (int) (epoch % window.buckets);
+            if (bucketEpochs[index] != epoch) {
+                sketches[index].clear();
+                bucketEpochs[index] = epoch;
+            }
+            sketches[index].add(isbn, title, author);
+        }
+
+        synchronized Map<String, TrendingTitleResponse> merged(long now) {
+            long oldestEpoch = now / window.bucketMillis - window.buckets + 1;
+            Map<String, TrendingTitleResponse> merged = new HashMap<>();
+            for (int i = 0; i < window.buckets; i++) {
+                if (bucketEpochs[i] < oldestEpoch) {
+                    continue;
+                }
+                for (SpaceSavingSketch.Entry entry : sketches[i].entries()) {
+                    TrendingTitleResponse title = merged.computeIfAbsent(entry.key, isbn -> TrendingTitleResponse.builder()
+                            .isbn(isbn)
+                            .title(entry.title)
+                            .author(entry.author)
+                            .build());
+                    title.setBorrows(title.getBorrows() + entry.count);
+                }
+            }
+            return merged;
+        }
+    }
+
+}
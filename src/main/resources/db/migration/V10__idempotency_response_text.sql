@@ -0,0 +1,3 @@
+-- V2 created response_body as TINYTEXT, which only holds 255 bytes of response JSON
+
+alter table idempotency_keys modify response_body text not null;
@@ -0,0 +1,44 @@
+-- Schema before versioned migrations. Databases that already have it are marked as migrated to
+-- library.schema.migrations.baseline-version instead of running this
+
+create table books (
+    id bigint not null auto_increment,
+    isbn varchar(50) not null,
+    title varchar(300) not null,
+    author varchar(255) not null,
+    status enum ('AVAILABLE','BORROWED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table borrowers (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table loans (
+    id bigint not null auto_increment,
+    book_id bigint not null,
+    borrower_id bigint not null,
+    borrowed_at datetime(6) not null,
+    returned_at datetime(6),
+    status enum ('ACTIVE','RETURNED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table borrowers
+    add constraint uq_borrower_email unique (email);
+
+create index idx_loan_book_status
+    on loans (book_id, status);
+
+alter table loans
+    add constraint fK_loan_book
+    foreign key (book_id)
+    references books (id);
+
+alter table loans
+    add constraint fk_loan_borrower
+    foreign key (borrower_id)
+    references borrowers (id);
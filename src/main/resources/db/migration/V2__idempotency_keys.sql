@@ -0,0 +1,11 @@
+create table idempotency_keys (
+    idempotency_key varchar(100) not null,
+    request_hash varchar(64) not null,
+    response_body tinytext not null,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    primary key (idempotency_key)
+) engine=InnoDB;
+
+create index idx_idempotency_expires_at
+    on idempotency_keys (expires_at);
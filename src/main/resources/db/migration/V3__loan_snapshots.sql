@@ -0,0 +1,7 @@
+-- Filled for existing loans by LoanColumnBackfill once the app is ready
+
+alter table loans add column book_isbn varchar(50);
+alter table loans add column book_title varchar(300);
+alter table loans add column book_author varchar(255);
+alter table loans add column borrower_email varchar(255);
+alter table loans add column borrower_name varchar(255);
@@ -0,0 +1,27 @@
+create table loans_archive (
+    id bigint not null,
+    book_id bigint not null,
+    borrower_id bigint not null,
+    borrowed_at datetime(6) not null,
+    returned_at datetime(6),
+    status enum ('ACTIVE','RETURNED') not null,
+    book_isbn varchar(50),
+    book_title varchar(300),
+    book_author varchar(255),
+    borrower_email varchar(255),
+    borrower_name varchar(255),
+    archived_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_loan_archive_borrower
+    on loans_archive (borrower_id, borrowed_at);
+
+create index idx_loan_archive_book
+    on loans_archive (book_id, borrowed_at);
+
+create index idx_loan_borrower
+    on loans (borrower_id, borrowed_at);
+
+create index idx_loan_status_returned_at
+    on loans (status, returned_at);
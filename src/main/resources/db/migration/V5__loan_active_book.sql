@@ -0,0 +1,6 @@
+-- Set for existing active loans by LoanColumnBackfill once the app is ready
+
+alter table loans add column active_book_id bigint;
+
+alter table loans
+    add constraint uq_loan_active_book unique (active_book_id);
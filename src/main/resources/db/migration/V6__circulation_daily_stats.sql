@@ -0,0 +1,11 @@
+create table circulation_daily_stats (
+    stat_date date not null,
+    dimension enum ('AUTHOR','BORROWER','ISBN') not null,
+    dimension_key varchar(300) not null,
+    borrow_count bigint not null,
+    return_count bigint not null,
+    primary key (stat_date, dimension_key, dimension)
+) engine=InnoDB;
+
+create index idx_circulation_stats_dimension_date
+    on circulation_daily_stats (dimension, stat_date);
@@ -0,0 +1,4 @@
+-- active_loan_count of existing borrowers is counted by LoanColumnBackfill once the app is ready
+
+alter table borrowers add column category enum ('STAFF','STANDARD','STUDENT') default 'STANDARD' not null;
+alter table borrowers add column active_loan_count integer default 0 not null;
@@ -0,0 +1,6 @@
+-- Filled for existing books by BookIsbnBackfill once the app is ready
+
+alter table books add column isbn13 bigint;
+
+create index idx_book_isbn13
+    on books (isbn13);
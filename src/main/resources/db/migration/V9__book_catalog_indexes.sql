@@ -0,0 +1,10 @@
+-- Filters of GET /api/books, each index returns its rows in the order pages are sorted in, ending in id
+
+create index idx_book_status_id
+    on books (status, id);
+
+create index idx_book_author_title_id
+    on books (author, title, id);
+
+create index idx_book_title_id
+    on books (title, id);
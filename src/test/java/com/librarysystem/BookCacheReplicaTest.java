@@ -0,0 +1,96 @@
+package com.librarysystem;
+
+import com.librarysystem.config.ReplicaRoutingDataSource;
+import com.librarysystem.config.SchemaMigrationProperties;
+import com.librarysystem.config.SchemaMigrator;
+import com.librarysystem.dto.response.BookResponse;
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import com.librarysystem.service.BookService;
+import com.librarysystem.service.LoanService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The book cache with an in-memory H2 replica that never receives the primary's writes, so every read that
+ * reaches the replica sees the book as it was before the borrow.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book-cache-primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "library.datasource.replicas.enabled=true",
+        "library.datasource.replicas.urls=" + BookCacheReplicaTest.REPLICA_URL,
+        "library.datasource.replicas.lag-query=",
+        "logging.level.com.librarysystem=WARN"
+})
+class BookCacheReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:book-cache-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    // Before the context starts, so startup reads routed to the replica find the tables
+    @BeforeAll
+    static void createReplicaSchema() throws Exception {
+        new SchemaMigrator(replica(), new SchemaMigrationProperties(true, 1), "validate").migrate();
+    }
+
+    @Test
+    void bookReadAfterABorrowIsNotTheReplicasStaleCopy() throws Exception {
+        // Given
+        Long borrowerId = borrowerRepository.save(Borrower.builder()
+                .name("Reader").email("replica-reader@example.com").build()).getId();
+        Long bookId = bookRepository.save(Book.builder()
+                .isbn("9780132350884").isbn13(9780132350884L).title("Clean Code").author("Robert C. Martin")
+                .build()).getId();
+
+        new JdbcTemplate(replica()).update(
+                "INSERT INTO books (id, isbn, isbn13, title, author, status) VALUES (?, ?, ?, ?, ?, 'AVAILABLE')",
+                bookId, "9780132350884", 9780132350884L, "Clean Code (replica)", "Robert C. Martin");
+        replicaRoutingDataSource.checkHealth();
+
+        bookService.getBook(bookId);
+
+        // When
+        loanService.borrowBook(borrowerId, bookId);
+
+        // Then
+        // Read-only transactions really do reach the replica
+        assertThat(bookRepository.findAll()).extracting(Book::getTitle).containsExactly("Clean Code (replica)");
+        assertThat(bookService.getBook(bookId).getBookStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(bookService.getBooksByIds(List.of(bookId)))
+                .extracting(BookResponse::getBookStatus).containsExactly(BookStatus.BORROWED);
+    }
+
+    private static DriverManagerDataSource replica() {
+        return new DriverManagerDataSource(REPLICA_URL, "sa", "");
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.librarysystem;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 100 borrowers repeatedly borrowing and returning the same book through the full request path on in-memory H2,
+ * while the pool is sampled. With the per-book admission queue only the request holding the book uses a
+ * connection, the others wait in the JVM without one.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contention;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "library.loans.admission.max-waiters=200",
+        "library.loans.admission.timeout=30s",
+        "logging.level.com.librarysystem=WARN"
+})
+@AutoConfigureMockMvc
+class BookContentionStressTest {
+
+    private static final int THREADS = 100;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Test
+    void poolUsageStaysFlatWhenEveryoneWantsTheSameBook() throws Exception {
+        // Given
+        Long bookId = bookRepository.save(Book.builder()
+                .isbn("9780132350884").title("Clean Code").author("Robert C. Martin").build()).getId();
+        List<Long> borrowerIds = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            borrowerIds.add(borrowerRepository.save(Borrower.builder()
+                    .name("Reader " + i).email("reader" + i + "@example.com").build()).getId());
+        }
+
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger peakActive = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                LockSupport.parkNanos(100_000);
+            }
+        });
+
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger returned = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // When
+        sampler.start();
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (Long borrowerId : borrowerIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    int status = mockMvc.perform(post("/api/borrowers/{b}/borrow/{id}", borrowerId, bookId))
+                            .andReturn().getResponse().getStatus();
+                    if (status == 200) {
+                        borrowed.incrementAndGet();
+                        int returnStatus = mockMvc.perform(post("/api/borrowers/{b}/return/{id}", borrowerId, bookId))
+                                .andReturn().getResponse().getStatus();
+                        assertThat(returnStatus).isEqualTo(200);
+                        returned.incrementAndGet();
+                    } else {
+                        assertThat(status).isEqualTo(409);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        running.set(false);
+        sampler.join();
+        executor.shutdown();
+
+        // Then
+        assertThat(borrowed.get()).isPositive().isEqualTo(returned.get());
+        assertThat(bookRepository.findById(bookId).orElseThrow().getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(peakActive.get()).isLessThanOrEqualTo(2);
+    }
+
+}
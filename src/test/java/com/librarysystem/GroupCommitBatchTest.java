@@ -0,0 +1,185 @@
+package com.librarysystem;
+
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.Loan;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import com.librarysystem.repository.LoanRepository;
+import com.librarysystem.service.CirculationService;
+import com.librarysystem.service.GroupCommitCirculationService;
+import com.librarysystem.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batches of {@link GroupCommitCirculationService} on in-memory H2 with one command rejected in the middle. The
+ * commands are queued 100ms apart, well within the window, so they run in one transaction in the order queued.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-commit-batch;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.librarysystem=WARN",
+        "library.circulation.mode=group-commit",
+        "library.circulation.group-commit-window=3s",
+        "library.circulation.group-commit-size=3",
+        "library.circulation.timeout=10s"
+})
+@ExtendWith(OutputCaptureExtension.class)
+@Import(GroupCommitBatchTest.BorrowEvents.class)
+class GroupCommitBatchTest {
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BorrowEvents borrowEvents;
+
+    @Test
+    void loanConstraintViolationRejectsOnlyItsBorrowAndTheBatchStillCommits(CapturedOutput output) throws Exception {
+        // Given
+        Borrower reader = borrower("batch-reader@example.com");
+        Borrower other = borrower("batch-other@example.com");
+        Book first = book("9780134685991", "Effective Java");
+        Book conflicting = book("9780132350884", "Clean Code");
+        Book last = book("9780201633610", "Design Patterns");
+        // Available but still on an active loan, so the loan insert fails on uq_loan_active_book
+        loanRepository.save(Loan.builder()
+                .book(conflicting).borrower(other).status(LoanStatus.ACTIVE).activeBookId(conflicting.getId())
+                .borrowedAt(LocalDateTime.now())
+                .build());
+        int borrowedBefore = borrowEvents.count.get();
+
+        // When
+        CompletableFuture<LoanResponse> firstBorrow = borrowLater(0, reader, first);
+        CompletableFuture<LoanResponse> rejectedBorrow = borrowLater(100, reader, conflicting);
+        CompletableFuture<LoanResponse> lastBorrow = borrowLater(200, reader, last);
+
+        // Then
+        assertThat(firstBorrow.get().getBookId()).isEqualTo(first.getId());
+        assertThat(lastBorrow.get().getBookId()).isEqualTo(last.getId());
+        assertThat(rejectedBorrow).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(DuplicateActionException.class);
+        assertThat(output).doesNotContain("running them one by one");
+
+        assertThat(bookRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(bookRepository.findById(conflicting.getId()).orElseThrow().getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(bookRepository.findById(last.getId()).orElseThrow().getStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(borrowerRepository.findById(reader.getId()).orElseThrow().getActiveLoanCount()).isEqualTo(2);
+        assertThat(loanRepository.findAll())
+                .filteredOn(loan -> loan.getBorrower().getId().equals(reader.getId()))
+                .extracting(loan -> loan.getBook().getId())
+                .containsExactlyInAnyOrder(first.getId(), last.getId());
+        assertThat(borrowEvents.count.get() - borrowedBefore).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedBorrowIsRolledBackToItsSavepointAndTheCommandsAroundItCommitTogether(CapturedOutput output) throws Exception {
+        // Given
+        Borrower reader = borrower("savepoint-reader@example.com");
+        Borrower other = borrower("savepoint-other@example.com");
+        Book first = book("9780596009205", "Head First Java");
+        Book taken = book("9781617294945", "Spring in Action");
+        Book kept = book("9780321356680", "Effective C++");
+        loanService.borrowBook(other.getId(), taken.getId());
+        loanService.borrowBook(reader.getId(), kept.getId());
+        int borrowedBefore = borrowEvents.count.get();
+
+        // When
+        CompletableFuture<LoanResponse> firstBorrow = borrowLater(0, reader, first);
+        CompletableFuture<LoanResponse> rejectedBorrow = borrowLater(100, reader, taken);
+        CompletableFuture<LoanResponse> keptReturn = later(200, () -> circulationService.returnBook(reader.getId(), kept.getId()));
+
+        // Then
+        LoanResponse borrowed = firstBorrow.get();
+        assertThat(borrowed.getStatus()).isEqualTo(LoanStatus.ACTIVE);
+        assertThat(borrowed.getBookTitle()).isEqualTo("Head First Java");
+        assertThat(keptReturn.get().getStatus()).isEqualTo(LoanStatus.RETURNED);
+        assertThat(rejectedBorrow).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(DuplicateActionException.class);
+        assertThat(output).doesNotContain("running them one by one");
+
+        assertThat(bookRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(bookRepository.findById(kept.getId()).orElseThrow().getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(borrowerRepository.findById(reader.getId()).orElseThrow().getActiveLoanCount()).isEqualTo(1);
+        assertThat(borrowerRepository.findById(other.getId()).orElseThrow().getActiveLoanCount()).isEqualTo(1);
+        assertThat(borrowEvents.count.get() - borrowedBefore).isEqualTo(1);
+    }
+
+    private CompletableFuture<LoanResponse> borrowLater(long delayMillis, Borrower borrower, Book book) {
+        return later(delayMillis, () -> circulationService.borrowBook(borrower.getId(), book.getId()));
+    }
+
+    private static CompletableFuture<LoanResponse> later(long delayMillis, Supplier<LoanResponse> command) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return command.get();
+        });
+    }
+
+    private Borrower borrower(String email) {
+        return borrowerRepository.save(Borrower.builder().name("Reader").email(email).build());
+    }
+
+    private Book book(String isbn, String title) {
+        return bookRepository.save(Book.builder()
+                .isbn(isbn).isbn13(Long.parseLong(isbn)).title(title).author("Author")
+                .build());
+    }
+
+    @TestConfiguration
+    static class BorrowEvents {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @TransactionalEventListener
+        public void onLoanEvent(LoanEvent event) {
+            if (event.type() == LoanEvent.Type.BORROWED) {
+                count.incrementAndGet();
+            }
+        }
+    }
+
+}
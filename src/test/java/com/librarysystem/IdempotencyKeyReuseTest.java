@@ -0,0 +1,58 @@
+package com.librarysystem;
+
+import com.librarysystem.entity.IdempotencyRecord;
+import com.librarysystem.repository.IdempotencyRecordRepository;
+import com.librarysystem.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reuse of an {@code Idempotency-Key} on in-memory H2 after its ttl but before {@code purgeExpired} removed the
+ * record.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency-reuse;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.librarysystem=WARN"
+})
+class IdempotencyKeyReuseTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void expiredKeyThatWasNotPurgedYetRunsTheActionAgain() {
+        // Given
+        LocalDateTime expiredAt = LocalDateTime.now().minusMinutes(1);
+        idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                .key("expired-key")
+                .requestHash("0".repeat(64))
+                .responseBody("\"first\"")
+                .createdAt(expiredAt.minusHours(24))
+                .expiresAt(expiredAt)
+                .build());
+
+        // When
+        String response = idempotencyService.execute("expired-key", "POST /api/books", String.class, () -> "second");
+        String replayed = idempotencyService.execute("expired-key", "POST /api/books", String.class, () -> "third");
+
+        // Then
+        assertThat(response).isEqualTo("second");
+        assertThat(replayed).isEqualTo("second");
+        IdempotencyRecord stored = idempotencyRecordRepository.findById("expired-key").orElseThrow();
+        assertThat(stored.getResponseBody()).isEqualTo("\"second\"");
+        assertThat(stored.getExpiresAt()).isAfter(LocalDateTime.now());
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.librarysystem;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import com.librarysystem.repository.LoanRepository;
+import com.librarysystem.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two returns of the same loan racing each other on in-memory H2, called on {@link LoanService} directly so the
+ * per-book admission queue does not put them one after the other.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:return-race;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.librarysystem=WARN"
+})
+@Import(LoanReturnRaceTest.ReturnEvents.class)
+class LoanReturnRaceTest {
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private ReturnEvents returnEvents;
+
+    @Test
+    void concurrentReturnsOfOneLoanReturnItOnce() throws Exception {
+        // Given
+        Long borrowerId = borrowerRepository.save(Borrower.builder()
+                .name("Reader").email("race-reader@example.com").build()).getId();
+        Long keptBookId = bookRepository.save(Book.builder()
+                .isbn("9780134685991").isbn13(9780134685991L).title("Effective Java").author("Joshua Bloch")
+                .build()).getId();
+        Long bookId = bookRepository.save(Book.builder()
+                .isbn("9780132350884").isbn13(9780132350884L).title("Clean Code").author("Robert C. Martin")
+                .build()).getId();
+        loanService.borrowBook(borrowerId, keptBookId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        int returnedBefore = returnEvents.count.get();
+
+        // When
+        List<Integer> successes = new ArrayList<>(ROUNDS);
+        for (int round = 0; round < ROUNDS; round++) {
+            loanService.borrowBook(borrowerId, bookId);
+
+            CountDownLatch start = new CountDownLatch(1);
+            Callable<Boolean> giveBack = () -> {
+                start.await();
+                try {
+                    loanService.returnBook(borrowerId, bookId);
+                    return true;
+                } catch (BusinessException ex) {
+                    assertThat(ex.getMessage()).isEqualTo("Book is not currently borrowed");
+                    return false;
+                }
+            };
+            Future<Boolean> first = executor.submit(giveBack);
+            Future<Boolean> second = executor.submit(giveBack);
+            start.countDown();
+            successes.add((result(first) ? 1 : 0) + (result(second) ? 1 : 0));
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(successes).containsOnly(1);
+        assertThat(returnEvents.count.get() - returnedBefore).isEqualTo(ROUNDS);
+        assertThat(borrowerRepository.findById(borrowerId).orElseThrow().getActiveLoanCount()).isEqualTo(1);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(loanRepository.findAll())
+                .filteredOn(loan -> loan.getStatus() == LoanStatus.RETURNED)
+                .hasSize(ROUNDS);
+    }
+
+    private static boolean result(Future<Boolean> future) throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    @TestConfiguration
+    static class ReturnEvents {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @TransactionalEventListener
+        public void onLoanEvent(LoanEvent event) {
+            if (event.type() == LoanEvent.Type.RETURNED) {
+                count.incrementAndGet();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.librarysystem.benchmark;
+
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.LoanStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 threads borrowing the same book, comparing the old borrow path, which locked the book row with
+ * {@code SELECT ... FOR UPDATE} before inserting the loan, updating the book and building the response, with
+ * the current one, where the lock is taken by the conditional update and the response is built after commit.
+ * Every successful borrow is returned straight away so the book stays contended.
+ * <p>
+ * All borrows of the book are serialized on its row lock, so throughput here is bounded by the inverse of the
+ * lock hold time. Timing the hold from inside the threads is not reliable with 64 threads on a few cores, as a
+ * thread holding the lock is often descheduled.
+ * <p>
+ * Runs on in-memory H2 by default, set {@code -Dbenchmark.jdbc.url}, {@code .username} and {@code .password}
+ * to measure against MySQL.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=BorrowLockBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class BorrowLockBenchmark {
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc.url",
+            "jdbc:h2:mem:borrow-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+    private static final String JDBC_USERNAME = System.getProperty("benchmark.jdbc.username", "sa");
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbc.password", "");
+
+    private static final long BOOK_ID = 1;
+    private static final long BORROWER_ID = 1;
+
+    @State(Scope.Thread)
+    public static class Session {
+
+        Connection connection;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = DriverManager.getConnection(JDBC_URL, JDBC_USERNAME, JDBC_PASSWORD);
+            connection.setAutoCommit(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, JDBC_USERNAME, JDBC_PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_loans");
+            statement.execute("DROP TABLE IF EXISTS bench_books");
+            statement.execute("DROP TABLE IF EXISTS bench_borrowers");
+            statement.execute("CREATE TABLE bench_books (id BIGINT PRIMARY KEY, isbn VARCHAR(50) NOT NULL, " +
+                    "title VARCHAR(300) NOT NULL, author VARCHAR(255) NOT NULL, status VARCHAR(20) NOT NULL)");
+            statement.execute("CREATE TABLE bench_borrowers (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, " +
+                    "email VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE TABLE bench_loans (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "book_id BIGINT NOT NULL, borrower_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL, " +
+                    "borrowed_at TIMESTAMP NOT NULL, returned_at TIMESTAMP NULL, " +
+                    "FOREIGN KEY (book_id) REFERENCES bench_books (id), " +
+                    "FOREIGN KEY (borrower_id) REFERENCES bench_borrowers (id))");
+            statement.execute("INSERT INTO bench_books VALUES (" + BOOK_ID +
+                    ", '9780132350884', 'Clean Code', 'Robert C. Martin', 'AVAILABLE')");
+            statement.execute("INSERT INTO bench_borrowers VALUES (" + BORROWER_ID +
+                    ", 'John Doe', 'john@example.com')");
+        }
+    }
+
+    @Benchmark
+    public LoanResponse lockThenBorrow(Session session) throws SQLException {
+        Connection connection = session.connection;
+        String[] borrower = findBorrower(connection);
+
+        String[] book;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT isbn, title, author, status FROM bench_books WHERE id = ? FOR UPDATE")) {
+            select.setLong(1, BOOK_ID);
+            book = readRow(select, 4);
+        }
+
+        if ("BORROWED".equals(book[3])) {
+            connection.rollback();
+            return null;
+        }
+
+        LocalDateTime borrowedAt = LocalDateTime.now();
+        long loanId = insertLoan(connection, borrowedAt);
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_books SET isbn = ?, title = ?, author = ?, status = 'BORROWED' WHERE id = ?")) {
+            update.setString(1, book[0]);
+            update.setString(2, book[1]);
+            update.setString(3, book[2]);
+            update.setLong(4, BOOK_ID);
+            update.executeUpdate();
+        }
+        LoanResponse response = toLoanResponse(loanId, book, borrower, borrowedAt);
+        connection.commit();
+
+        returnBook(connection);
+        return response;
+    }
+
+    @Benchmark
+    public LoanResponse conditionalUpdateBorrow(Session session) throws SQLException {
+        Connection connection = session.connection;
+        String[] borrower = findBorrower(connection);
+
+        String[] book;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT isbn, title, author FROM bench_books WHERE id = ?")) {
+            select.setLong(1, BOOK_ID);
+            book = readRow(select, 3);
+        }
+
+        int updated;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_books SET status = 'BORROWED' WHERE id = ? AND status = 'AVAILABLE'")) {
+            update.setLong(1, BOOK_ID);
+            updated = update.executeUpdate();
+        }
+
+        if (updated == 0) {
+            connection.rollback();
+            return null;
+        }
+
+        LocalDateTime borrowedAt = LocalDateTime.now();
+        long loanId = insertLoan(connection, borrowedAt);
+        connection.commit();
+        LoanResponse response = toLoanResponse(loanId, book, borrower, borrowedAt);
+
+        returnBook(connection);
+        return response;
+    }
+
+    private String[] findBorrower(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT name, email FROM bench_borrowers WHERE id = ?")) {
+            select.setLong(1, BORROWER_ID);
+            return readRow(select, 2);
+        }
+    }
+
+    private long insertLoan(Connection connection, LocalDateTime borrowedAt) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_loans (book_id, borrower_id, status, borrowed_at) VALUES (?, ?, 'ACTIVE', ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setLong(1, BOOK_ID);
+            insert.setLong(2, BORROWER_ID);
+            insert.setTimestamp(3, Timestamp.valueOf(borrowedAt));
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private void returnBook(Connection connection) throws SQLException {
+        try (PreparedStatement loan = connection.prepareStatement(
+                "UPDATE bench_loans SET status = 'RETURNED', returned_at = ? WHERE book_id = ? AND status = 'ACTIVE'");
+             PreparedStatement book = connection.prepareStatement(
+                     "UPDATE bench_books SET status = 'AVAILABLE' WHERE id = ?")) {
+            book.setLong(1, BOOK_ID);
+            book.executeUpdate();
+            loan.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            loan.setLong(2, BOOK_ID);
+            loan.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    private static String[] readRow(PreparedStatement select, int columns) throws SQLException {
+        try (ResultSet row = select.executeQuery()) {
+            row.next();
+            String[] values = new String[columns];
+            for (int i = 0; i < columns; i++) {
+                values[i] = row.getString(i + 1);
+            }
+            return values;
+        }
+    }
+
+    private static LoanResponse toLoanResponse(long loanId, String[] book, String[] borrower, LocalDateTime borrowedAt) {
+        return LoanResponse.builder()
+                .id(loanId)
+                .bookId(BOOK_ID)
+                .bookIsbn(book[0])
+                .bookTitle(book[1])
+                .bookAuthor(book[2])
+                .borrowerId(BORROWER_ID)
+                .borrowerName(borrower[0])
+                .borrowerEmail(borrower[1])
+                .status(LoanStatus.ACTIVE)
+                .borrowedAt(borrowedAt)
+                .build();
+    }
+
+}
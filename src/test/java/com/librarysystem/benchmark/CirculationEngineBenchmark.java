@@ -0,0 +1,150 @@
+package com.librarysystem.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.librarysystem.config.CirculationProperties;
+import com.librarysystem.config.LoanLimitProperties;
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.BorrowerCategory;
+import com.librarysystem.service.JournaledCirculationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64 threads borrowing and returning their own book through {@link JournaledCirculationService}, so the only
+ * contention is the writer thread and the journal. One op is a borrow followed by its return, two journal records.
+ * The replicator writes to the same database in the background, the journal is sized so it never fills up.
+ * <p>
+ * Runs on in-memory H2 by default, set {@code -Dbenchmark.jdbc.url}, {@code .username} and {@code .password}
+ * to replicate to MySQL, which must have the application's schema.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CirculationEngineBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class CirculationEngineBenchmark {
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc.url",
+            "jdbc:h2:mem:circulation-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private static final String JDBC_USERNAME = System.getProperty("benchmark.jdbc.username", "sa");
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbc.password", "");
+
+    private static final int BOOKS = 64;
+
+    @Param({"true", "false"})
+    public boolean journalForce;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private Path journalDir;
+    private JournaledCirculationService circulationService;
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        long id;
+
+        @Setup(Level.Trial)
+        public void pickBook(CirculationEngineBenchmark benchmark) {
+            id = benchmark.nextId.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        // per-request INFO logging would dominate what is measured
+        ((Logger) LoggerFactory.getLogger(JournaledCirculationService.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(JDBC_URL, JDBC_USERNAME, JDBC_PASSWORD);
+        if (JDBC_URL.startsWith("jdbc:h2:")) {
+            createSchema(dataSource);
+        }
+
+        journalDir = Files.createTempDirectory("circulation-benchmark");
+        CirculationProperties properties = new CirculationProperties(journalDir.resolve("circulation.journal"),
+                DataSize.ofGigabytes(1), journalForce, 65536, 1000, Duration.ofSeconds(30), Duration.ofMillis(2), 50);
+        LoanLimitProperties loanLimits = new LoanLimitProperties(Map.of(
+                BorrowerCategory.STANDARD, 5,
+                BorrowerCategory.STUDENT, 10,
+                BorrowerCategory.STAFF, 20));
+
+        GenericApplicationContext events = new GenericApplicationContext();
+        events.refresh();
+        circulationService = new JournaledCirculationService(new NamedParameterJdbcTemplate(dataSource), loanLimits,
+                properties, new DataSourceTransactionManager(dataSource), events);
+        circulationService.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        circulationService.destroy();
+        try (var files = Files.list(journalDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDir);
+    }
+
+    @Benchmark
+    public LoanResponse borrowAndReturn(Reader reader) {
+        circulationService.borrowBook(reader.id, reader.id);
+        return circulationService.returnBook(reader.id, reader.id);
+    }
+
+    private static void createSchema(DriverManagerDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, isbn VARCHAR(50) NOT NULL, " +
+                    "title VARCHAR(300) NOT NULL, author VARCHAR(255) NOT NULL, status VARCHAR(20) NOT NULL)");
+            statement.execute("CREATE TABLE borrowers (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, " +
+                    "email VARCHAR(255) NOT NULL, category VARCHAR(20) NOT NULL, active_loan_count INT NOT NULL)");
+            statement.execute("CREATE TABLE loans (id BIGINT PRIMARY KEY, book_id BIGINT NOT NULL, " +
+                    "borrower_id BIGINT NOT NULL, book_isbn VARCHAR(50), book_title VARCHAR(300), " +
+                    "book_author VARCHAR(255), borrower_name VARCHAR(255), borrower_email VARCHAR(255), " +
+                    "status VARCHAR(20) NOT NULL, active_book_id BIGINT UNIQUE, borrowed_at TIMESTAMP NOT NULL, " +
+                    "returned_at TIMESTAMP NULL)");
+            statement.execute("CREATE TABLE loans_archive (id BIGINT PRIMARY KEY)");
+            for (int i = 1; i <= BOOKS; i++) {
+                statement.execute("INSERT INTO books VALUES (" + i + ", '978" + i + "', 'Title " + i +
+                        "', 'Author', 'AVAILABLE')");
+                statement.execute("INSERT INTO borrowers VALUES (" + i + ", 'Reader " + i + "', 'reader" + i +
+                        "@example.com', 'STANDARD', 0)");
+            }
+        }
+    }
+
+}
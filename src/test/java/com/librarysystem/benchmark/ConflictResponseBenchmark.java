@@ -0,0 +1,122 @@
+package com.librarysystem.benchmark;
+
+import com.librarysystem.exception.ApiException;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.exception.GlobalExceptionHandler;
+import com.librarysystem.exception.dto.ErrorResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering a borrow of an already borrowed book with 409, from the throw to the JSON body bytes.
+ * The exception is thrown {@code depth} frames below the catch, 100 is roughly how deep a service call sits under
+ * Tomcat, the filters and Spring MVC.
+ * <ul>
+ *     <li>{@code stackTraceAndJackson}: the previous path, an exception with a stack trace and an
+ *     {@link ErrorResponse} written by Jackson</li>
+ *     <li>{@code stacklessAndJackson}: a stackless {@link DuplicateActionException} with the same body</li>
+ *     <li>{@code stacklessAndPreformatted}: a stackless exception handled by {@link GlobalExceptionHandler}, which
+ *     writes the preformatted body</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConflictResponseBenchmark {
+
+    private static final String MESSAGE = "Book is already borrowed";
+    private static final String PATH = "/api/borrowers/1/borrow/1";
+
+    @Param({"0", "100"})
+    private int depth;
+
+    private ObjectMapper mapper;
+    private GlobalExceptionHandler handler;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder().build();
+        handler = new GlobalExceptionHandler(1000);
+        request = new MockHttpServletRequest("POST", PATH);
+    }
+
+    @Benchmark
+    public byte[] stackTraceAndJackson() {
+        try {
+            throwAt(depth, true);
+            throw new IllegalStateException("Not thrown");
+        } catch (StackfulConflictException ex) {
+            return mapper.writeValueAsBytes(errorResponse(HttpStatus.CONFLICT, ex.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] stacklessAndJackson() {
+        try {
+            throwAt(depth, false);
+            throw new IllegalStateException("Not thrown");
+        } catch (ApiException ex) {
+            return mapper.writeValueAsBytes(errorResponse(ex.getHttpStatus(), ex.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public Object stacklessAndPreformatted() {
+        try {
+            throwAt(depth, false);
+            throw new IllegalStateException("Not thrown");
+        } catch (ApiException ex) {
+            return handler.handleApiException(ex, request).getBody();
+        }
+    }
+
+    private static void throwAt(int depth, boolean stackTrace) {
+        if (depth > 0) {
+            throwAt(depth - 1, stackTrace);
+            return;
+        }
+        if (stackTrace) {
+            throw new StackfulConflictException(MESSAGE);
+        }
+        throw new DuplicateActionException(MESSAGE);
+    }
+
+    private static ErrorResponse errorResponse(HttpStatus status, String message) {
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.name())
+                .message(message)
+                .path(PATH)
+                .build();
+    }
+
+    // What ApiException used to be, a RuntimeException filling in its stack trace
+    private static final class StackfulConflictException extends RuntimeException {
+
+        StackfulConflictException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.librarysystem.benchmark;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.Loan;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.entity.enums.LoanStatus;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
+import org.hibernate.bytecode.enhance.spi.DefaultEnhancementContext;
+import org.hibernate.bytecode.enhance.spi.Enhancer;
+import org.hibernate.bytecode.enhance.spi.UnloadedField;
+import org.hibernate.bytecode.internal.bytebuddy.BytecodeProviderImpl;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of returning or re-borrowing one loan and committing it ({@code returnOrBorrowAndCommit}), and of a flush
+ * that finds nothing to write ({@code flushUnchanged}), with {@code loans} loans, their books and the borrower
+ * managed by the session.
+ * <ul>
+ *     <li>{@code plain}: the entities as compiled, the flush compares every managed entity with the snapshot
+ *     taken when it was loaded</li>
+ *     <li>{@code enhanced}: the same entities enhanced the way the build does, a flush only asks each entity
+ *     whether it recorded a change</li>
+ * </ul>
+ * The enhanced classes are made at runtime in a separate class loader, so both run from one build. That build has to
+ * leave the entities as compiled: {@code mvn -Pbenchmark -Denhance.skip=true clean test-compile exec:exec}. With
+ * {@code loans=1} the session holds what a single return does, larger values show how the flush grows with the
+ * persistence context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityFlushBenchmark {
+
+    @Param({"plain", "enhanced"})
+    private String entities;
+
+    @Param({"1", "500"})
+    private int loans;
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private Transaction transaction;
+    private List<Object> managedLoans;
+    private Consumer<Object> toggle;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        ClassLoader classLoader = entities.equals("enhanced")
+                ? new EnhancingClassLoader(getClass().getClassLoader())
+                : getClass().getClassLoader();
+
+        Configuration configuration = new Configuration(new BootstrapServiceRegistryBuilder()
+                .applyClassLoader(classLoader)
+                .build())
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:flush-" + entities + ";MODE=MySQL")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .addAnnotatedClass(classLoader.loadClass(Book.class.getName()))
+                .addAnnotatedClass(classLoader.loadClass(Borrower.class.getName()))
+                .addAnnotatedClass(classLoader.loadClass(Loan.class.getName()));
+        sessionFactory = configuration.buildSessionFactory();
+
+        Class<?> loanClass = classLoader.loadClass(Loan.class.getName());
+        if (ManagedEntity.class.isAssignableFrom(loanClass) != entities.equals("enhanced")) {
+            throw new IllegalStateException("Loan is " + (entities.equals("enhanced") ? "not " : "") + "enhanced, "
+                    + "build with -Denhance.skip=true clean so the entities are left as compiled");
+        }
+
+        sessionFactory.inTransaction(this::insertLoans);
+
+        @SuppressWarnings("unchecked")
+        Consumer<Object> loaded = (Consumer<Object>) classLoader.loadClass(Toggle.class.getName())
+                .getDeclaredConstructor()
+                .newInstance();
+        toggle = loaded;
+
+        session = sessionFactory.openSession();
+        transaction = session.beginTransaction();
+        managedLoans = session.createSelectionQuery(
+                "FROM Loan l JOIN FETCH l.book JOIN FETCH l.borrower ORDER BY l.id", Object.class).list();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transaction.rollback();
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void returnOrBorrowAndCommit() {
+        toggle.accept(managedLoans.get(next));
+        next = (next + 1) % managedLoans.size();
+
+        transaction.commit();
+        transaction = session.beginTransaction();
+    }
+
+    // Only the dirty check, nothing changed so no SQL is sent
+    @Benchmark
+    public void flushUnchanged() {
+        session.flush();
+    }
+
+    private void insertLoans(Session seeding) {
+        seeding.doWork(connection -> {
+            connection.createStatement().execute("INSERT INTO borrowers (id, name, email, category, active_loan_count) " +
+                    "VALUES (1, 'Reader', 'reader@example.com', 'STANDARD', 0)");
+            try (PreparedStatement books = connection.prepareStatement("INSERT INTO books " +
+                    "(id, isbn, isbn13, title, author, status) VALUES (?, '9780132350884', 9780132350884, ?, " +
+                    "'Robert C. Martin', 'BORROWED')");
+                 PreparedStatement loanRows = connection.prepareStatement("INSERT INTO loans (id, book_id, " +
+                         "borrower_id, book_isbn, book_title, book_author, borrower_name, borrower_email, status, " +
+                         "active_book_id, borrowed_at) VALUES (?, ?, 1, '9780132350884', ?, 'Robert C. Martin', " +
+                         "'Reader', 'reader@example.com', 'ACTIVE', ?, CURRENT_TIMESTAMP)")) {
+                for (int i = 1; i <= loans; i++) {
+                    books.setLong(1, i);
+                    books.setString(2, "Clean Code " + i);
+                    books.addBatch();
+                    loanRows.setLong(1, i);
+                    loanRows.setLong(2, i);
+                    loanRows.setString(3, "Clean Code " + i);
+                    loanRows.setLong(4, i);
+                    loanRows.addBatch();
+                }
+                books.executeBatch();
+                loanRows.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Returns an active loan or borrows a returned one again. Loaded by the same class loader as the entities, so
+     * it works on the enhanced classes too.
+     */
+    public static class Toggle implements Consumer<Object> {
+
+        @Override
+        public void accept(Object managed) {
+            Loan loan = (Loan) managed;
+            Book book = loan.getBook();
+            if (loan.getStatus() == LoanStatus.ACTIVE) {
+                loan.setStatus(LoanStatus.RETURNED);
+                loan.setActiveBookId(null);
+                loan.setReturnedAt(LocalDateTime.now());
+                book.setStatus(BookStatus.AVAILABLE);
+            } else {
+                loan.setStatus(LoanStatus.ACTIVE);
+                loan.setActiveBookId(book.getId());
+                loan.setReturnedAt(null);
+                book.setStatus(BookStatus.BORROWED);
+            }
+        }
+    }
+
+    /**
+     * Loads the entities, and {@link Toggle} which uses them, enhanced with dirty tracking, lazy loading and
+     * association management like the build.
+     */
+    private static final class EnhancingClassLoader extends ClassLoader {
+
+        private final Enhancer enhancer = new BytecodeProviderImpl().getEnhancer(new DefaultEnhancementContext() {
+            @Override
+            public boolean doBiDirectionalAssociationManagement(UnloadedField field) {
+                return true;
+            }
+        });
+
+        EnhancingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("com.librarysystem.entity.") && !name.startsWith(Toggle.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    byte[] bytes = read(name);
+                    byte[] enhanced = enhancer.enhance(name, bytes);
+                    byte[] definition = enhanced != null ? enhanced : bytes;
+                    loaded = defineClass(name, definition, 0, definition.length);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        private byte[] read(String name) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return in.readAllBytes();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.librarysystem.benchmark;
+
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.LoanStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of writing and reading a page of 1000 {@link LoanResponse}s as JSON and as CBOR, with and without the
+ * Blackbird module. The payload size of each format, raw and gzipped, is logged once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseSerializationBenchmark.class);
+
+    private static final int PAGE_SIZE = 1000;
+    private static final TypeReference<List<LoanResponse>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"JSON", "CBOR"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    private ObjectMapper mapper;
+    private List<LoanResponse> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "JSON" -> blackbird
+                    ? JsonMapper.builder().addModule(new BlackbirdModule()).build()
+                    : JsonMapper.builder().build();
+            case "CBOR" -> blackbird
+                    ? CBORMapper.builder().addModule(new BlackbirdModule()).build()
+                    : CBORMapper.builder().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+
+        LocalDateTime borrowedAt = LocalDateTime.of(2026, 3, 2, 10, 0);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            page.add(LoanResponse.builder()
+                    .id(i)
+                    .bookId(i)
+                    .bookIsbn("978-0-13-235088-" + i % 10)
+                    .bookTitle("Clean Code " + i)
+                    .bookAuthor("Robert C. Martin")
+                    .borrowerId(i % 100)
+                    .borrowerName("Borrower " + i % 100)
+                    .borrowerEmail("borrower" + i % 100 + "@example.com")
+                    .status(i % 2 == 0 ? LoanStatus.ACTIVE : LoanStatus.RETURNED)
+                    .borrowedAt(borrowedAt.plusMinutes(i))
+                    .returnedAt(i % 2 == 0 ? null : borrowedAt.plusDays(14))
+                    .build());
+        }
+
+        encoded = mapper.writeValueAsBytes(page);
+        log.info("{} page of {} loans: {} bytes, {} bytes gzipped", format, PAGE_SIZE, encoded.length, gzippedSize(encoded));
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<LoanResponse> read() {
+        return mapper.readValue(encoded, PAGE_TYPE);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.librarysystem.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of returning a book (and borrowing it again, to keep one active loan per copy) with
+ * {@code historyRows} returned loans either still in {@code loans} or moved to {@code loans_archive}.
+ * <p>
+ * The request asked for 50M history rows, which needs MySQL and a lot of disk, so the default is 1M on
+ * in-memory H2. Against MySQL:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="ReturnBookHistory -p historyRows=50000000" \
+ *     -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/librarydb?rewriteBatchedStatements=true ...
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReturnBookHistoryBenchmark {
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc.url",
+            "jdbc:h2:mem:return-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private static final String JDBC_USERNAME = System.getProperty("benchmark.jdbc.username", "sa");
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbc.password", "");
+
+    private static final int BOOKS = 10_000;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param("1000000")
+    private int historyRows;
+
+    @Param({"false", "true"})
+    private boolean archived;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void createHistory() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, JDBC_USERNAME, JDBC_PASSWORD);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_loans");
+            statement.execute("DROP TABLE IF EXISTS bench_loans_archive");
+            statement.execute("DROP TABLE IF EXISTS bench_books");
+            statement.execute("CREATE TABLE bench_books (id BIGINT PRIMARY KEY, status VARCHAR(20) NOT NULL)");
+            statement.execute("CREATE TABLE bench_loans (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "book_id BIGINT NOT NULL, borrower_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL, " +
+                    "borrowed_at TIMESTAMP NOT NULL, returned_at TIMESTAMP NULL)");
+            statement.execute("CREATE INDEX idx_bench_loan_book_status ON bench_loans (book_id, status)");
+            statement.execute("CREATE TABLE bench_loans_archive (id BIGINT PRIMARY KEY, " +
+                    "book_id BIGINT NOT NULL, borrower_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL, " +
+                    "borrowed_at TIMESTAMP NOT NULL, returned_at TIMESTAMP NULL)");
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement books = connection.prepareStatement("INSERT INTO bench_books VALUES (?, 'BORROWED')")) {
+            for (int book = 1; book <= BOOKS; book++) {
+                books.setLong(1, book);
+                books.addBatch();
+            }
+            books.executeBatch();
+        }
+
+        Timestamp longAgo = Timestamp.valueOf(LocalDateTime.now().minusYears(2));
+        try (PreparedStatement loans = connection.prepareStatement(
+                "INSERT INTO bench_loans (book_id, borrower_id, status, borrowed_at, returned_at) VALUES (?, 1, ?, ?, ?)")) {
+            for (int row = 0; row < historyRows; row++) {
+                loans.setLong(1, row % BOOKS + 1);
+                loans.setString(2, "RETURNED");
+                loans.setTimestamp(3, longAgo);
+                loans.setTimestamp(4, longAgo);
+                loans.addBatch();
+                if (row % INSERT_BATCH == INSERT_BATCH - 1) {
+                    loans.executeBatch();
+                    connection.commit();
+                }
+            }
+            for (int book = 1; book <= BOOKS; book++) {
+                loans.setLong(1, book);
+                loans.setString(2, "ACTIVE");
+                loans.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                loans.setTimestamp(4, null);
+                loans.addBatch();
+            }
+            loans.executeBatch();
+        }
+        connection.commit();
+
+        if (archived) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO bench_loans_archive SELECT * FROM bench_loans WHERE status = 'RETURNED'");
+                statement.execute("DELETE FROM bench_loans WHERE status = 'RETURNED'");
+            }
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long returnAndBorrowAgain() throws SQLException {
+        long bookId = ThreadLocalRandom.current().nextInt(BOOKS) + 1;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        long loanId;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM bench_loans WHERE book_id = ? AND status = 'ACTIVE'")) {
+            select.setLong(1, bookId);
+            try (ResultSet row = select.executeQuery()) {
+                row.next();
+                loanId = row.getLong(1);
+            }
+        }
+        try (PreparedStatement loan = connection.prepareStatement(
+                "UPDATE bench_loans SET status = 'RETURNED', returned_at = ? WHERE id = ?");
+             PreparedStatement book = connection.prepareStatement(
+                     "UPDATE bench_books SET status = 'AVAILABLE' WHERE id = ?")) {
+            loan.setTimestamp(1, now);
+            loan.setLong(2, loanId);
+            loan.executeUpdate();
+            book.setLong(1, bookId);
+            book.executeUpdate();
+        }
+        connection.commit();
+
+        try (PreparedStatement book = connection.prepareStatement(
+                "UPDATE bench_books SET status = 'BORROWED' WHERE id = ? AND status = 'AVAILABLE'");
+             PreparedStatement loan = connection.prepareStatement(
+                     "INSERT INTO bench_loans (book_id, borrower_id, status, borrowed_at) VALUES (?, 1, 'ACTIVE', ?)")) {
+            book.setLong(1, bookId);
+            book.executeUpdate();
+            loan.setLong(1, bookId);
+            loan.setTimestamp(2, now);
+            loan.executeUpdate();
+        }
+        connection.commit();
+        return loanId;
+    }
+
+}
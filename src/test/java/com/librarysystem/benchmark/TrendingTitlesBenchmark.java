@@ -0,0 +1,66 @@
+package com.librarysystem.benchmark;
+
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.service.TrendingTitles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost added to a borrow by {@link TrendingTitles}, with borrows spread over 100k ISBNs so most of them miss the
+ * sketches and evict, plus the cost of answering a top 10 query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendingTitlesBenchmark {
+
+    private static final int ISBNS = 100_000;
+
+    private TrendingTitles trendingTitles;
+    private LoanEvent[] events;
+
+    @Setup
+    public void setUp() {
+        trendingTitles = new TrendingTitles(100);
+        events = new LoanEvent[ISBNS];
+        for (int i = 0; i < ISBNS; i++) {
+            events[i] = new LoanEvent(LoanEvent.Type.BORROWED, (long) i, (long) i, "978-" + i, "Title " + i,
+                    "Author", 1L, LocalDateTime.now());
+        }
+        for (int i = 0; i < 1_000_000; i++) {
+            trendingTitles.onLoanEvent(nextEvent());
+        }
+    }
+
+    @Benchmark
+    public void recordBorrow() {
+        trendingTitles.onLoanEvent(nextEvent());
+    }
+
+    @Benchmark
+    public Object topTenLastWeek() {
+        return trendingTitles.top(TrendingTitles.Window.WEEK, 10);
+    }
+
+    // Skewed towards low indexes so a few titles are popular, like real borrowing
+    private LoanEvent nextEvent() {
+        double uniform = ThreadLocalRandom.current().nextDouble();
+        return events[(int) (ISBNS * uniform * uniform * uniform)];
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.librarysystem.config;
+
+import com.librarysystem.service.BookAdmissionQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookAdmissionInterceptorTest {
+
+    @Mock
+    private ObjectProvider<BookAdmissionQueue> queueProvider;
+
+    @Mock
+    private BookAdmissionQueue queue;
+
+    private BookAdmissionInterceptor interceptor;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/borrowers/1/borrow/7");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new BookAdmissionInterceptor(queueProvider);
+    }
+
+    @Test
+    void bookIsHeldUntilTheRequestCompletes() throws Exception {
+        // Given
+        when(queueProvider.getIfAvailable()).thenReturn(queue);
+        when(queueProvider.getObject()).thenReturn(queue);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("borrowerId", "1", "bookId", "7"));
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        // Then
+        assertThat(proceed).isTrue();
+        verify(queue).acquire(7L);
+        verify(queue).release(7L);
+    }
+
+    @Test
+    void requestWithoutNumericBookIdIsNotQueued() throws Exception {
+        // Given
+        when(queueProvider.getIfAvailable()).thenReturn(queue);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("borrowerId", "1", "bookId", "abc"));
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        // Then
+        assertThat(proceed).isTrue();
+        verify(queue, never()).acquire(any());
+        verify(queue, never()).release(any());
+    }
+
+}
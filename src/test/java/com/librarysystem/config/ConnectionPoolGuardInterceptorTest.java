@@ -0,0 +1,79 @@
+package com.librarysystem.config;
+
+import com.librarysystem.exception.ServiceUnavailableException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionPoolGuardInterceptorTest {
+
+    @Mock
+    private ObjectProvider<HikariDataSource> dataSourceProvider;
+
+    @Mock
+    private HikariDataSource dataSource;
+
+    @Mock
+    private HikariPoolMXBean pool;
+
+    private ConnectionPoolGuardInterceptor interceptor;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/borrowers/1/borrow/1");
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ConnectionPoolGuardInterceptor(dataSourceProvider, 10, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void preHandleAllowsRequestWhenPendingThreadsAreWithinLimit() {
+        // Given
+        when(dataSourceProvider.getIfUnique()).thenReturn(dataSource);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(10);
+
+        // When
+        // Then
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+    }
+
+    @Test
+    void preHandleWillThrowServiceUnavailableWhenTooManyThreadsArePending() {
+        // Given
+        when(dataSourceProvider.getIfUnique()).thenReturn(dataSource);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(11);
+
+        // When
+        // Then
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        assertThat(ex.getMessage()).isEqualTo("Service is busy, please retry");
+        assertThat(ex.getRetryAfter()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void preHandleAllowsRequestWhenPoolIsNotAvailable() {
+        // Given
+        when(dataSourceProvider.getIfUnique()).thenReturn(null);
+
+        // When
+        // Then
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+    }
+
+}
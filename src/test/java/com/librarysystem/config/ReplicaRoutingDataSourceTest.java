@@ -0,0 +1,160 @@
+package com.librarysystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource replica1;
+
+    @Mock
+    private HikariDataSource replica2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replica1Connection;
+
+    @Mock
+    private Connection replica2Connection;
+
+    @Test
+    void getConnectionUsesPrimaryBeforeFirstHealthCheck() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), null, Duration.ofSeconds(5));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection connection = dataSource.getConnection();
+
+        // Then
+        assertThat(connection).isSameAs(primaryConnection);
+        verifyNoInteractions(replica1);
+    }
+
+    @Test
+    void getConnectionRoundRobinsOverHealthyReplicas() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), null, Duration.ofSeconds(5));
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        when(replica1Connection.isValid(anyInt())).thenReturn(true);
+        when(replica2Connection.isValid(anyInt())).thenReturn(true);
+        dataSource.checkHealth();
+
+        // When
+        // Then
+        assertThat(dataSource.getConnection()).isSameAs(replica1Connection);
+        assertThat(dataSource.getConnection()).isSameAs(replica2Connection);
+        assertThat(dataSource.getConnection()).isSameAs(replica1Connection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void checkHealthRemovesReplicaThatLagsTooFarBehind() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), "SHOW REPLICA STATUS", Duration.ofSeconds(5));
+        Statement statement = mock(Statement.class);
+        ResultSet status = mock(ResultSet.class, Answers.RETURNS_DEEP_STUBS);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica1Connection.isValid(anyInt())).thenReturn(true);
+        when(replica1Connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(status);
+        when(status.next()).thenReturn(true);
+        when(status.getMetaData().getColumnCount()).thenReturn(1);
+        when(status.getMetaData().getColumnLabel(1)).thenReturn("Seconds_Behind_Source");
+        when(status.getLong(1)).thenReturn(30L);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnectionFallsBackToPrimaryWhenReplicaFailsToConnect() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), null, Duration.ofSeconds(5));
+        when(replica1.getConnection()).thenReturn(replica1Connection).thenThrow(new SQLException("down"));
+        when(replica1Connection.isValid(anyInt())).thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        dataSource.checkHealth();
+
+        // When
+        Connection connection = dataSource.getConnection();
+
+        // Then
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        verify(replica1, times(2)).getConnection();
+    }
+
+    @Test
+    void checkHealthDoesNotBringBackReplicaThatFailedWhileItRan() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), null, Duration.ofSeconds(5));
+        when(replica1.getConnection())
+                .thenReturn(replica1Connection)
+                .thenReturn(replica1Connection)
+                .thenThrow(new SQLException("down"))
+                .thenReturn(replica1Connection);
+        // The replica passes its second check, then a request fails to connect to it before the check finishes
+        when(replica1Connection.isValid(anyInt()))
+                .thenReturn(true)
+                .thenAnswer(invocation -> {
+                    dataSource.getConnection();
+                    return true;
+                })
+                .thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        dataSource.checkHealth();
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        verify(replica1, times(3)).getConnection();
+
+        dataSource.checkHealth();
+        assertThat(dataSource.getConnection()).isSameAs(replica1Connection);
+    }
+
+    @Test
+    void getConnectionWithCredentialsIsNotSupported() {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1), null, Duration.ofSeconds(5));
+
+        // When
+        // Then
+        assertThrows(SQLFeatureNotSupportedException.class, () -> dataSource.getConnection("reader", "secret"));
+        verifyNoInteractions(primary, replica1);
+    }
+
+}
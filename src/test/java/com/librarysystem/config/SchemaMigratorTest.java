@@ -0,0 +1,105 @@
+package com.librarysystem.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@code db/migration} against in-memory H2 in MySQL mode. The app itself starts with the schema built only
+ * from the scripts and {@code ddl-auto=validate}, so startup fails when the scripts and the entities disagree.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-migration;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.librarysystem=WARN"
+})
+class SchemaMigratorTest {
+
+    private static final List<Integer> ALL_VERSIONS = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void startupAppliesEveryMigrationAndTheEntitiesValidate() throws Exception {
+        // Given
+        List<Integer> installed = jdbcTemplate.queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class);
+
+        // When
+        List<Integer> appliedAgain = schemaMigrator.migrate();
+
+        // Then
+        assertThat(installed).isEqualTo(ALL_VERSIONS);
+        assertThat(appliedAgain).isEmpty();
+    }
+
+    @Test
+    void emptyDatabaseGetsEveryMigrationOnce() throws Exception {
+        // Given
+        DriverManagerDataSource dataSource = dataSource("schema-empty");
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SchemaMigrationProperties(true, 1), "validate");
+
+        // When
+        List<Integer> applied = migrator.migrate();
+        List<Integer> appliedAgain = migrator.migrate();
+
+        // Then
+        assertThat(applied).isEqualTo(ALL_VERSIONS);
+        assertThat(appliedAgain).isEmpty();
+        assertThat(new JdbcTemplate(dataSource).queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class))
+                .isEqualTo(ALL_VERSIONS);
+    }
+
+    @Test
+    void existingSchemaIsMarkedAsBaselineAndOnlyLaterMigrationsRun() throws Exception {
+        // Given
+        DriverManagerDataSource dataSource = dataSource("schema-baseline");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+        JdbcTemplate baselineJdbc = new JdbcTemplate(dataSource);
+        baselineJdbc.update("INSERT INTO books (isbn, title, author, status) " +
+                "VALUES ('9780132350884', 'Clean Code', 'Robert C. Martin', 'AVAILABLE')");
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SchemaMigrationProperties(true, 1), "validate");
+
+        // When
+        List<Integer> applied = migrator.migrate();
+
+        // Then
+        assertThat(applied).isEqualTo(ALL_VERSIONS.subList(1, ALL_VERSIONS.size()));
+        assertThat(baselineJdbc.queryForList("SELECT description FROM schema_version WHERE version = 1", String.class))
+                .containsExactly("baseline");
+        assertThat(baselineJdbc.queryForObject("SELECT COUNT(*) FROM books", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void schemaCreatedByHibernateIsLeftAlone() throws Exception {
+        // Given
+        DriverManagerDataSource dataSource = dataSource("schema-create-drop");
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SchemaMigrationProperties(true, 1), "create-drop");
+
+        // When
+        migrator.afterPropertiesSet();
+
+        // Then
+        assertThat(new JdbcTemplate(dataSource).queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'", Integer.class)).isZero();
+    }
+
+    private static DriverManagerDataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+}
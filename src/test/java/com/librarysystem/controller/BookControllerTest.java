@@ -1,11 +1,15 @@
 package com.librarysystem.controller;
 
+import com.librarysystem.dto.request.BookFilter;
 import com.librarysystem.dto.request.CreateBookRequest;
 import com.librarysystem.dto.response.BookResponse;
 import com.librarysystem.entity.enums.BookStatus;
 import com.librarysystem.exception.BusinessException;
 import com.librarysystem.exception.GlobalExceptionHandler;
+import com.librarysystem.exception.ResourceNotFoundException;
 import com.librarysystem.service.BookService;
+import com.librarysystem.service.CatalogVersion;
+import com.librarysystem.service.IdempotencyService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
@@ -17,12 +21,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -38,9 +47,18 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @MockitoBean
+    private CatalogVersion catalogVersion;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CBORMapper cborMapper;
+
     @Test
     void createBookSuccessful() throws Exception {
         // Given
@@ -144,8 +162,9 @@ class BookControllerTest {
 
         Page<BookResponse> page = new PageImpl<>(List.of(book1, book2), pageable, 2);
 
-        given(bookService.getBooks(any(Pageable.class)))
+        given(bookService.getBooks(any(BookFilter.class), any(), any(Pageable.class)))
                 .willReturn(page);
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
 
         // When
         // Then
@@ -154,6 +173,7 @@ class BookControllerTest {
                         .param("size", "20")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"a-1-0\""))
                 .andExpect(jsonPath("$.content", hasSize(2)))
                 .andExpect(jsonPath("$.content[0].isbn").value("978-1"))
                 .andExpect(jsonPath("$.content[0].bookStatus").value("AVAILABLE"))
@@ -162,4 +182,174 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(2));
     }
 
-}
\ No newline at end of file
+    @Test
+    void getBooksWillReturnNotModifiedWithoutLoadingBooksWhenEtagMatches() throws Exception {
+        // Given
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books")
+                        .header("If-None-Match", "W/\"a-1-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"a-1-0\""))
+                .andExpect(content().string(""));
+
+        verify(bookService, never()).getBooks(any(BookFilter.class), any(), any(Pageable.class));
+    }
+
+    @Test
+    void getBooksReturnsCborWhenRequested() throws Exception {
+        // Given
+        Pageable pageable = PageRequest.of(0, 20);
+        BookResponse book = BookResponse.builder()
+                .id(1L)
+                .isbn("978-1")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .bookStatus(BookStatus.AVAILABLE)
+                .build();
+        given(bookService.getBooks(any(BookFilter.class), any(), any(Pageable.class))).willReturn(new PageImpl<>(List.of(book), pageable, 1));
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
+
+        // When
+        byte[] body = mockMvc.perform(get("/api/books")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        // Then
+        JsonNode page = cborMapper.readTree(body);
+        assertThat(page.get("content").get(0).get("isbn").asString()).isEqualTo("978-1");
+        assertThat(page.get("totalElements").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    void getBooksPassesFiltersAndSortToService() throws Exception {
+        // Given
+        BookFilter filter = BookFilter.builder()
+                .status(BookStatus.AVAILABLE)
+                .author("Robert C. Martin")
+                .build();
+        BookResponse book = BookResponse.builder()
+                .id(1L)
+                .isbn("9780132350884")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .bookStatus(BookStatus.AVAILABLE)
+                .build();
+        given(bookService.getBooks(filter, BookService.SortBy.TITLE, PageRequest.of(0, 20)))
+                .willReturn(new PageImpl<>(List.of(book), PageRequest.of(0, 20), 1));
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books")
+                        .param("status", "AVAILABLE")
+                        .param("author", "Robert C. Martin")
+                        .param("sort", "TITLE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("Clean Code"));
+    }
+
+    @Test
+    void getBooksWillReturnBadRequestWhenSortIsUnknown() throws Exception {
+        // Given
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books")
+                        .param("sort", "isbn;DROP")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).getBooks(any(BookFilter.class), any(), any(Pageable.class));
+    }
+
+    @Test
+    void getBooksWillReturnBadRequestWhenSortIsNotSupportedWithFilters() throws Exception {
+        // Given
+        given(bookService.getBooks(any(BookFilter.class), any(), any(Pageable.class)))
+                .willThrow(new BusinessException("Sorting by TITLE is not supported with these filters, use one of [ID]"));
+        given(catalogVersion.etag()).willReturn("W/\"a-1-0\"");
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books")
+                        .param("status", "AVAILABLE")
+                        .param("sort", "TITLE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("Sorting by TITLE is not supported with these filters, use one of [ID]"));
+    }
+
+    @Test
+    void getBookSuccessful() throws Exception {
+        // Given
+        BookResponse book = BookResponse.builder()
+                .id(1L)
+                .isbn("9780132350884")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .bookStatus(BookStatus.BORROWED)
+                .build();
+        given(bookService.getBook(1L)).willReturn(book);
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books/{id}", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.isbn").value("9780132350884"))
+                .andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+    }
+
+    @Test
+    void getBookWillReturnNotFoundWhenBookDoesNotExist() throws Exception {
+        // Given
+        given(bookService.getBook(99L)).willThrow(new ResourceNotFoundException("Book not found with id: 99"));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books/{id}", 99L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Book not found with id: 99"))
+                .andExpect(jsonPath("$.path").value("/api/books/99"));
+    }
+
+    @Test
+    void getBooksByIdsSuccessful() throws Exception {
+        // Given
+        BookResponse book = BookResponse.builder()
+                .id(2L)
+                .isbn("9780134685991")
+                .title("Effective Java")
+                .author("Joshua Bloch")
+                .bookStatus(BookStatus.AVAILABLE)
+                .build();
+        given(bookService.getBooksByIds(List.of(2L, 3L))).willReturn(List.of(book));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books")
+                        .param("ids", "2,3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].title").value("Effective Java"));
+
+        verify(bookService, never()).getBooks(any(BookFilter.class), any(), any(Pageable.class));
+    }
+
+}
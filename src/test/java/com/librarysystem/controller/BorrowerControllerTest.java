@@ -2,9 +2,13 @@ package com.librarysystem.controller;
 
 import com.librarysystem.dto.request.CreateBorrowerRequest;
 import com.librarysystem.dto.response.BorrowerResponse;
+import com.librarysystem.dto.response.BulkEnrollmentResponse;
+import com.librarysystem.dto.response.BulkEnrollmentRowResult;
 import com.librarysystem.exception.DuplicateActionException;
 import com.librarysystem.exception.GlobalExceptionHandler;
+import com.librarysystem.service.BorrowerEnrollmentService;
 import com.librarysystem.service.BorrowerService;
+import com.librarysystem.service.IdempotencyService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
@@ -14,8 +18,11 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import tools.jackson.databind.ObjectMapper;
 
+import java.util.List;
+
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +37,12 @@ class BorrowerControllerTest {
     @MockitoBean
     private BorrowerService borrowerService;
 
+    @MockitoBean
+    private BorrowerEnrollmentService borrowerEnrollmentService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -106,4 +119,58 @@ class BorrowerControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/borrowers"));
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void enrollBorrowersWithNdjsonReturnsPerRowReport() throws Exception {
+        // Given
+        BulkEnrollmentResponse response = BulkEnrollmentResponse.builder()
+                .totalRows(2)
+                .created(1)
+                .rejected(1)
+                .rows(List.of(
+                        BulkEnrollmentRowResult.builder()
+                                .row(1)
+                                .email("john@example.com")
+                                .status(BulkEnrollmentRowResult.Status.CREATED)
+                                .borrowerId(1L)
+                                .build(),
+                        BulkEnrollmentRowResult.builder()
+                                .row(2)
+                                .email("john@example.com")
+                                .status(BulkEnrollmentRowResult.Status.DUPLICATE_IN_BATCH)
+                                .message("Email appears earlier in this batch")
+                                .build()))
+                .build();
+
+        given(borrowerEnrollmentService.enroll(any(), eq(BorrowerEnrollmentService.Format.NDJSON)))
+                .willReturn(response);
+
+        // When
+        // Then
+        mockMvc.perform(post("/api/borrowers/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("""
+                                {"name":"John Doe","email":"john@example.com"}
+                                {"name":"John Doe","email":"john@example.com"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.rows[1].status").value("DUPLICATE_IN_BATCH"));
+    }
+
+    @Test
+    void enrollBorrowersWithCsvUsesCsvFormat() throws Exception {
+        // Given
+        given(borrowerEnrollmentService.enroll(any(), eq(BorrowerEnrollmentService.Format.CSV)))
+                .willReturn(BulkEnrollmentResponse.builder().rows(List.of()).build());
+
+        // When
+        // Then
+        mockMvc.perform(post("/api/borrowers/bulk")
+                        .contentType("text/csv")
+                        .content("name,email\nJohn Doe,john@example.com\n"))
+                .andExpect(status().isOk());
+    }
+}
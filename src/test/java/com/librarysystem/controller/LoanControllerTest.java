@@ -6,20 +6,37 @@ import com.librarysystem.exception.BusinessException;
 import com.librarysystem.exception.DuplicateActionException;
 import com.librarysystem.exception.GlobalExceptionHandler;
 import com.librarysystem.exception.ResourceNotFoundException;
-import com.librarysystem.service.LoanService;
+import com.librarysystem.exception.ServiceUnavailableException;
+import com.librarysystem.service.CirculationService;
+import com.librarysystem.service.IdempotencyService;
+import com.librarysystem.service.LoanHistoryService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,11 +48,20 @@ class LoanControllerTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private LoanService loanService;
+    private CirculationService circulationService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @MockitoBean
+    private LoanHistoryService loanHistoryService;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CBORMapper cborMapper;
+
     @Test
     void borrowBookSuccessful() throws Exception {
         // Given
@@ -55,7 +81,7 @@ class LoanControllerTest {
                 .borrowedAt(LocalDateTime.now())
                 .build();
 
-        given(loanService.borrowBook(borrowerId, bookId)).willReturn(response);
+        given(circulationService.borrowBook(borrowerId, bookId)).willReturn(response);
 
         // When
         // Then
@@ -68,13 +94,42 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.status").value("ACTIVE"));
     }
 
+    @Test
+    void borrowBookWithIdempotencyKeyGoesThroughIdempotencyService() throws Exception {
+        // Given
+        Long borrowerId = 1L;
+        Long bookId = 1L;
+
+        LoanResponse response = LoanResponse.builder()
+                .id(1L)
+                .bookId(bookId)
+                .borrowerId(borrowerId)
+                .status(LoanStatus.ACTIVE)
+                .borrowedAt(LocalDateTime.now())
+                .build();
+
+        given(idempotencyService.execute(eq("key-1"), eq("POST /api/borrowers/1/borrow/1"), eq(LoanResponse.class), any()))
+                .willReturn(response);
+
+        // When
+        // Then
+        mockMvc.perform(post("/api/borrowers/{borrowerId}/borrow/{bookId}", borrowerId, bookId)
+                        .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+
+        verify(circulationService, never()).borrowBook(any(), any());
+    }
+
     @Test
     void borrowBookWillReturnNotFoundWhenBorrowerDoesNotExist() throws Exception {
         // Given
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.borrowBook(borrowerId, bookId))
+        given(circulationService.borrowBook(borrowerId, bookId))
                 .willThrow(new ResourceNotFoundException("Borrower not found with id: " + borrowerId));
 
         // When
@@ -94,7 +149,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 999L;
 
-        given(loanService.borrowBook(borrowerId, bookId))
+        given(circulationService.borrowBook(borrowerId, bookId))
                 .willThrow(new ResourceNotFoundException("Book not found with id: " + bookId));
 
         // When
@@ -114,7 +169,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.borrowBook(borrowerId, bookId))
+        given(circulationService.borrowBook(borrowerId, bookId))
                 .willThrow(new DuplicateActionException("Book is already borrowed"));
 
         // When
@@ -128,6 +183,51 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/borrowers/1/borrow/1"));
     }
 
+    @Test
+    void borrowBookWillReturnConflictAsCborWhenRequested() throws Exception {
+        // Given
+        Long borrowerId = 1L;
+        Long bookId = 1L;
+
+        given(circulationService.borrowBook(borrowerId, bookId))
+                .willThrow(new DuplicateActionException("Book is already borrowed"));
+
+        // When
+        byte[] body = mockMvc.perform(post("/api/borrowers/{borrowerId}/borrow/{bookId}", borrowerId, bookId)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        // Then
+        JsonNode error = cborMapper.readTree(body);
+        assertThat(error.get("status").asInt()).isEqualTo(409);
+        assertThat(error.get("message").asString()).isEqualTo("Book is already borrowed");
+        assertThat(error.get("path").asString()).isEqualTo("/api/borrowers/1/borrow/1");
+    }
+
+    @Test
+    void borrowBookWillReturnServiceUnavailableWithRetryAfter() throws Exception {
+        // Given
+        Long borrowerId = 1L;
+        Long bookId = 1L;
+
+        given(circulationService.borrowBook(borrowerId, bookId))
+                .willThrow(new ServiceUnavailableException("Service is busy, please retry", Duration.ofSeconds(2)));
+
+        // When
+        // Then
+        mockMvc.perform(post("/api/borrowers/{borrowerId}/borrow/{bookId}", borrowerId, bookId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.error").value("SERVICE_UNAVAILABLE"))
+                .andExpect(jsonPath("$.message").value("Service is busy, please retry"));
+    }
+
     @Test
     void returnBookSuccessful() throws Exception {
         // Given
@@ -148,7 +248,7 @@ class LoanControllerTest {
                 .returnedAt(LocalDateTime.now())
                 .build();
 
-        given(loanService.returnBook(borrowerId, bookId)).willReturn(response);
+        given(circulationService.returnBook(borrowerId, bookId)).willReturn(response);
 
         // When
         // Then
@@ -167,7 +267,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.returnBook(borrowerId, bookId))
+        given(circulationService.returnBook(borrowerId, bookId))
                 .willThrow(new ResourceNotFoundException("Borrower not found with id: " + borrowerId));
 
         // When
@@ -187,7 +287,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.returnBook(borrowerId, bookId))
+        given(circulationService.returnBook(borrowerId, bookId))
                 .willThrow(new ResourceNotFoundException("Book not found with id: " + bookId));
 
         // When
@@ -207,7 +307,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.returnBook(borrowerId, bookId))
+        given(circulationService.returnBook(borrowerId, bookId))
                 .willThrow(new BusinessException("Book is not currently borrowed"));
 
         // When
@@ -227,7 +327,7 @@ class LoanControllerTest {
         Long borrowerId = 1L;
         Long bookId = 1L;
 
-        given(loanService.returnBook(borrowerId, bookId))
+        given(circulationService.returnBook(borrowerId, bookId))
                 .willThrow(new BusinessException("This book is currently borrowed by a different person"));
 
         // When
@@ -241,4 +341,50 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/borrowers/1/return/1"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void getBorrowerLoansSuccessful() throws Exception {
+        // Given
+        Long borrowerId = 1L;
+
+        LoanResponse loan = LoanResponse.builder()
+                .id(1L)
+                .bookId(1L)
+                .bookIsbn("978-1")
+                .bookTitle("Clean Code")
+                .bookAuthor("Robert C. Martin")
+                .borrowerId(borrowerId)
+                .borrowerName("John Doe")
+                .borrowerEmail("john@example.com")
+                .status(LoanStatus.RETURNED)
+                .borrowedAt(LocalDateTime.now().minusDays(2))
+                .returnedAt(LocalDateTime.now().minusDays(1))
+                .build();
+
+        given(loanHistoryService.getBorrowerLoans(eq(borrowerId), any()))
+                .willReturn(new PageImpl<>(List.of(loan), PageRequest.of(0, 20), 1));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/borrowers/{borrowerId}/loans", borrowerId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.content[0].status").value("RETURNED"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    void getBookLoansWillReturnNotFoundWhenBookDoesNotExist() throws Exception {
+        // Given
+        given(loanHistoryService.getBookLoans(eq(1L), any()))
+                .willThrow(new ResourceNotFoundException("Book not found with id: 1"));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/books/{bookId}/loans", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Book not found with id: 1"));
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.librarysystem.controller;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.librarysystem.support.StatementCounter.expectAtMost;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of the hot requests of {@code BookController}, {@code BorrowerController} and
+ * {@code LoanController}, run against in-memory H2 through the whole stack. Raising a budget should be a
+ * deliberate change, not the side effect of a new lazy association traversal.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.librarysystem.support.StatementCounter",
+        "logging.level.com.librarysystem=WARN"
+})
+@AutoConfigureMockMvc
+class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    private Long bookId;
+    private Long borrowerId;
+
+    @BeforeEach
+    void setUp() {
+        bookId = bookRepository.save(Book.builder()
+                .isbn("9780132350884").isbn13(9780132350884L).title("Clean Code").author("Robert C. Martin")
+                .build()).getId();
+        borrowerId = borrowerRepository.save(Borrower.builder()
+                .name("Reader " + bookId).email("reader" + bookId + "@example.com").build()).getId();
+    }
+
+    @Test
+    void createBookUsesAtMostTwoStatements() throws Exception {
+        // When
+        // Then
+        expectAtMost(2, () -> mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"isbn\":\"978-0-13-468599-1\",\"title\":\"Effective Java\",\"author\":\"Joshua Bloch\"}"))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void getBookUsesOneStatementThenNone() throws Exception {
+        // When
+        // Then
+        expectAtMost(1, () -> mockMvc.perform(get("/api/books/{id}", bookId)).andExpect(status().isOk()));
+        expectAtMost(0, () -> mockMvc.perform(get("/api/books/{id}", bookId)).andExpect(status().isOk()));
+    }
+
+    @Test
+    void getBooksByIdsUsesOneStatement() throws Exception {
+        // Given
+        Long otherId = bookRepository.save(Book.builder()
+                .isbn("9780134685991").isbn13(9780134685991L).title("Effective Java").author("Joshua Bloch")
+                .build()).getId();
+
+        // When
+        // Then
+        expectAtMost(1, () -> mockMvc.perform(get("/api/books").param("ids", bookId + "," + otherId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getBooksPageUsesAtMostTwoStatements() throws Exception {
+        // When
+        // Then
+        expectAtMost(2, () -> mockMvc.perform(get("/api/books").param("size", "50")).andExpect(status().isOk()));
+    }
+
+    @Test
+    void getBooksFilteredByAuthorAndStatusUsesAtMostTwoStatements() throws Exception {
+        // Given
+        String author = "Author " + bookId;
+        bookRepository.save(Book.builder()
+                .isbn("9780134685991").isbn13(9780134685991L).title("Effective Java").author(author).build());
+        bookRepository.save(Book.builder()
+                .isbn("9780201633610").isbn13(9780201633610L).title("Design Patterns").author(author)
+                .status(BookStatus.BORROWED).build());
+        bookRepository.save(Book.builder()
+                .isbn("9780201616224").isbn13(9780201616224L).title("A_Pragmatic Programmer").author(author).build());
+
+        // When
+        // Then
+        expectAtMost(2, () -> mockMvc.perform(get("/api/books")
+                        .param("author", author)
+                        .param("status", "AVAILABLE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("A_Pragmatic Programmer", "Effective Java"))));
+        expectAtMost(2, () -> mockMvc.perform(get("/api/books")
+                        .param("author", author)
+                        .param("titlePrefix", "A_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("A_Pragmatic Programmer"))));
+    }
+
+    @Test
+    void createBorrowerUsesAtMostTwoStatements() throws Exception {
+        // When
+        // Then
+        expectAtMost(2, () -> mockMvc.perform(post("/api/borrowers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"New Reader\",\"email\":\"new-reader-" + bookId + "@example.com\"}"))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void borrowUsesAtMostFiveStatements() throws Exception {
+        // When
+        // Then
+        expectAtMost(5, () -> mockMvc.perform(post("/api/borrowers/{b}/borrow/{id}", borrowerId, bookId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void rejectedBorrowUsesAtMostThreeStatements() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/borrowers/{b}/borrow/{id}", borrowerId, bookId)).andExpect(status().isOk());
+
+        // When
+        // Then
+        expectAtMost(3, () -> mockMvc.perform(post("/api/borrowers/{b}/borrow/{id}", borrowerId, bookId))
+                .andExpect(status().isConflict()));
+    }
+
+    @Test
+    void returnUsesAtMostSixStatements() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/borrowers/{b}/borrow/{id}", borrowerId, bookId)).andExpect(status().isOk());
+
+        // When
+        // Then
+        expectAtMost(6, () -> mockMvc.perform(post("/api/borrowers/{b}/return/{id}", borrowerId, bookId))
+                .andExpect(status().isOk()));
+    }
+
+}
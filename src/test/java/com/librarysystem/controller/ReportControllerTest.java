@@ -0,0 +1,72 @@
+package com.librarysystem.controller;
+
+import com.librarysystem.dto.response.CirculationStatResponse;
+import com.librarysystem.entity.enums.StatDimension;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.GlobalExceptionHandler;
+import com.librarysystem.service.CirculationReportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ReportController.class)
+@Import(GlobalExceptionHandler.class)
+class ReportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CirculationReportService circulationReportService;
+
+    @Test
+    void getCirculationSuccessful() throws Exception {
+        // Given
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        given(circulationReportService.getCirculation(StatDimension.AUTHOR, day, day, 20))
+                .willReturn(List.of(new CirculationStatResponse("Robert C. Martin", 3, 2)));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/reports/circulation")
+                        .param("by", "AUTHOR")
+                        .param("from", "2026-03-02")
+                        .param("to", "2026-03-02")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("Robert C. Martin"))
+                .andExpect(jsonPath("$[0].borrows").value(3))
+                .andExpect(jsonPath("$[0].returns").value(2));
+    }
+
+    @Test
+    void getCirculationWillReturnBadRequestForInvalidRange() throws Exception {
+        // Given
+        given(circulationReportService.getCirculation(StatDimension.ISBN,
+                LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 1), 20))
+                .willThrow(new BusinessException("from must not be after to"));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/reports/circulation")
+                        .param("by", "ISBN")
+                        .param("from", "2026-03-02")
+                        .param("to", "2026-03-01")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("from must not be after to"));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.librarysystem.controller;
+
+import com.librarysystem.dto.response.TrendingTitleResponse;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.GlobalExceptionHandler;
+import com.librarysystem.service.TrendingTitles;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = TitleController.class)
+@Import(GlobalExceptionHandler.class)
+class TitleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TrendingTitles trendingTitles;
+
+    @Test
+    void getTrendingSuccessful() throws Exception {
+        // Given
+        TrendingTitleResponse title = TrendingTitleResponse.builder()
+                .isbn("978-1")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .borrows(42)
+                .build();
+        given(trendingTitles.top(TrendingTitles.Window.HOUR, 5)).willReturn(List.of(title));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/titles/trending")
+                        .param("n", "5")
+                        .param("window", "HOUR")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("978-1"))
+                .andExpect(jsonPath("$[0].borrows").value(42));
+    }
+
+    @Test
+    void getTrendingWillReturnBadRequestForInvalidN() throws Exception {
+        // Given
+        given(trendingTitles.top(TrendingTitles.Window.DAY, 0))
+                .willThrow(new BusinessException("n must be between 1 and 100"));
+
+        // When
+        // Then
+        mockMvc.perform(get("/api/titles/trending")
+                        .param("n", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("n must be between 1 and 100"));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.librarysystem.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorBodyCacheTest {
+
+    private final ErrorBodyCache errorBodyCache = new ErrorBodyCache(10);
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void jsonMatchesErrorResponseFields() {
+        // Given
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+        // When
+        JsonNode body = jsonMapper.readTree(errorBodyCache.json(HttpStatus.CONFLICT, "Book is already borrowed",
+                "/api/borrowers/1/borrow/1"));
+
+        // Then
+        assertThat(LocalDateTime.parse(body.get("timestamp").asString())).isAfter(before);
+        assertThat(body.get("status").asInt()).isEqualTo(409);
+        assertThat(body.get("error").asString()).isEqualTo("CONFLICT");
+        assertThat(body.get("message").asString()).isEqualTo("Book is already borrowed");
+        assertThat(body.get("path").asString()).isEqualTo("/api/borrowers/1/borrow/1");
+        assertThat(body.get("details").isNull()).isTrue();
+    }
+
+    @Test
+    void jsonEscapesMessageAndPath() {
+        // Given
+        String message = "Title \"Café\" is\nnot valid";
+        String path = "/api/books/\"x\\";
+
+        // When
+        JsonNode body = jsonMapper.readTree(errorBodyCache.json(HttpStatus.BAD_REQUEST, message, path));
+
+        // Then
+        assertThat(body.get("message").asString()).isEqualTo(message);
+        assertThat(body.get("path").asString()).isEqualTo(path);
+    }
+
+    @Test
+    void apiExceptionsHaveNoStackTrace() {
+        // When
+        // Then
+        assertThat(new DuplicateActionException("Book is already borrowed").getStackTrace()).isEmpty();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.librarysystem.service;
+
+import com.librarysystem.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookAdmissionQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void secondRequestForTheSameBookWaitsForTheFirst() throws Exception {
+        // Given
+        BookAdmissionQueue queue = new BookAdmissionQueue(meterRegistry, 10, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        queue.acquire(1L);
+
+        // When
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> queue.acquire(1L));
+        waitUntilWaiting(queue, 1L, 1);
+
+        // Then
+        assertThat(second).isNotDone();
+        assertThat(queue.longestQueues()).containsEntry(1L, 1);
+        assertThat(meterRegistry.get("library.books.admission.waiting").gauge().value()).isEqualTo(1.0);
+
+        queue.release(1L);
+        second.get(2, TimeUnit.SECONDS);
+        assertThat(queue.waitingFor(1L)).isZero();
+        queue.release(1L);
+        assertThat(queue.longestQueues()).isEmpty();
+    }
+
+    @Test
+    void requestsForDifferentBooksDoNotWait() {
+        // Given
+        BookAdmissionQueue queue = new BookAdmissionQueue(meterRegistry, 10, Duration.ofMillis(100), Duration.ofSeconds(1));
+        queue.acquire(1L);
+
+        // When
+        queue.acquire(2L);
+
+        // Then
+        assertThat(queue.waitingFor(1L)).isZero();
+        assertThat(queue.waitingFor(2L)).isZero();
+    }
+
+    @Test
+    void acquireWillThrowServiceUnavailableWhenTooManyRequestsWait() {
+        // Given
+        BookAdmissionQueue queue = new BookAdmissionQueue(meterRegistry, 1, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        queue.acquire(1L);
+        CompletableFuture.runAsync(() -> queue.acquire(1L));
+        waitUntilWaiting(queue, 1L, 1);
+
+        // When
+        // Then
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class, () -> queue.acquire(1L));
+        assertThat(ex.getMessage()).isEqualTo("Book is busy, please retry");
+        assertThat(ex.getRetryAfter()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(queue.waitingFor(1L)).isEqualTo(1);
+        assertThat(meterRegistry.get("library.books.admission.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquireWillThrowServiceUnavailableWhenTheWaitTimesOut() {
+        // Given
+        BookAdmissionQueue queue = new BookAdmissionQueue(meterRegistry, 10, Duration.ofMillis(50), Duration.ofSeconds(1));
+        queue.acquire(1L);
+
+        // When
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> queue.acquire(1L));
+
+        // Then
+        assertThat(second).failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(ServiceUnavailableException.class);
+        assertThat(queue.waitingFor(1L)).isZero();
+    }
+
+    private static void waitUntilWaiting(BookAdmissionQueue queue, Long bookId, int waiting) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (queue.waitingFor(bookId) != waiting) {
+            assertThat(System.nanoTime()).as("waiting for %d queued requests", waiting).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.BookResponse;
+import com.librarysystem.entity.enums.BookStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookCacheTest {
+
+    private final BookCache bookCache = new BookCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+    @Test
+    void loadThatReadTheBookBeforeAnInvalidationIsNotKept() throws InterruptedException {
+        // Given
+        // The load read the book, then a borrow committed and invalidated it before the load finished
+        Thread borrow = new Thread(() -> bookCache.invalidate(1L));
+        BookResponse stale = bookCache.get(1L, id -> {
+            borrow.start();
+            awaitBlockedOrDone(borrow);
+            return book(id, BookStatus.AVAILABLE);
+        });
+        borrow.join(5000);
+
+        // When
+        BookResponse next = bookCache.get(1L, id -> book(id, BookStatus.BORROWED));
+
+        // Then
+        assertThat(stale.getBookStatus()).isEqualTo(BookStatus.AVAILABLE);
+        assertThat(next.getBookStatus()).isEqualTo(BookStatus.BORROWED);
+    }
+
+    @Test
+    void bulkLoadKeepsOnlyTheBooksNotInvalidatedWhileItRan() {
+        // Given
+        bookCache.getAll(Set.of(1L, 2L), missing -> {
+            bookCache.invalidate(1L);
+            return Map.of(1L, book(1L, BookStatus.AVAILABLE), 2L, book(2L, BookStatus.AVAILABLE));
+        });
+
+        // When
+        Map<Long, BookResponse> next = bookCache.getAll(Set.of(1L, 2L),
+                missing -> Map.of(1L, book(1L, BookStatus.BORROWED)));
+
+        // Then
+        assertThat(next.get(1L).getBookStatus()).isEqualTo(BookStatus.BORROWED);
+        assertThat(next.get(2L).getBookStatus()).isEqualTo(BookStatus.AVAILABLE);
+    }
+
+    @Test
+    void loadsAfterTheInvalidationAreKept() {
+        // Given
+        bookCache.invalidate(1L);
+        bookCache.get(1L, id -> book(id, BookStatus.BORROWED));
+
+        // When
+        BookResponse cached = bookCache.get(1L, id -> book(id, BookStatus.AVAILABLE));
+
+        // Then
+        assertThat(cached.getBookStatus()).isEqualTo(BookStatus.BORROWED);
+    }
+
+    private static void awaitBlockedOrDone(Thread thread) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (thread.getState() != Thread.State.BLOCKED && thread.getState() != Thread.State.WAITING
+                && thread.getState() != Thread.State.TERMINATED && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static BookResponse book(Long id, BookStatus status) {
+        return BookResponse.builder()
+                .id(id)
+                .isbn("9780132350884")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .bookStatus(status)
+                .build();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.librarysystem.service;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookIsbnBackfillTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookIsbnBackfill bookIsbnBackfill;
+
+    @BeforeEach
+    void setUp() {
+        bookIsbnBackfill = new BookIsbnBackfill(bookRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void backfillParsesIsbnsAndSkipsInvalidOnes() {
+        // Given
+        Book isbn10 = Book.builder().id(1L).isbn("0-13-468599-7").build();
+        Book invalid = Book.builder().id(2L).isbn("978-1").build();
+        when(bookRepository.findTop1000ByIsbn13IsNullAndIdGreaterThanOrderById(0L)).thenReturn(List.of(isbn10, invalid));
+        when(bookRepository.findTop1000ByIsbn13IsNullAndIdGreaterThanOrderById(2L)).thenReturn(List.of());
+
+        // When
+        bookIsbnBackfill.backfill();
+
+        // Then
+        assertThat(isbn10.getIsbn13()).isEqualTo(9780134685991L);
+        assertThat(isbn10.getIsbn()).isEqualTo("9780134685991");
+        assertThat(invalid.getIsbn13()).isNull();
+        assertThat(invalid.getIsbn()).isEqualTo("978-1");
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BookLockTimeoutTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @BeforeEach
+    void startTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void setsTheWaitOnceAndRestoresTheDefaultWhenTheTransactionCompletes() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        BookLockTimeout bookLockTimeout = new BookLockTimeout(jdbcTemplate, Duration.ofSeconds(2));
+
+        // When
+        bookLockTimeout.apply();
+        bookLockTimeout.apply();
+
+        // Then
+        verify(jdbcTemplate).execute("SET SESSION innodb_lock_wait_timeout = 2");
+        verify(jdbcTemplate, never()).execute("SET SESSION innodb_lock_wait_timeout = DEFAULT");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        verify(jdbcTemplate).execute("SET SESSION innodb_lock_wait_timeout = DEFAULT");
+        assertThat(TransactionSynchronizationManager.hasResource(bookLockTimeout)).isFalse();
+    }
+
+    @Test
+    void leavesOtherDatabasesAlone() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        BookLockTimeout bookLockTimeout = new BookLockTimeout(jdbcTemplate, Duration.ofSeconds(2));
+
+        // When
+        bookLockTimeout.apply();
+
+        // Then
+        verify(jdbcTemplate, never()).execute(anyString());
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+
+}
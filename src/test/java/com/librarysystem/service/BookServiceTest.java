@@ -1,28 +1,41 @@
 package com.librarysystem.service;
 
+import com.librarysystem.dto.request.BookFilter;
 import com.librarysystem.dto.request.CreateBookRequest;
 import com.librarysystem.dto.response.BookResponse;
 import com.librarysystem.entity.Book;
 import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.event.BookCreatedEvent;
+import com.librarysystem.event.LoanEvent;
 import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.ResourceNotFoundException;
 import com.librarysystem.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,27 +44,33 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private BookCache bookCache;
+
     private BookService bookService;
 
     @BeforeEach
     void setUp() {
-        bookService = new BookService(bookRepository);
+        bookCache = new BookCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        bookService = new BookService(bookRepository, eventPublisher, bookCache, 3);
     }
 
     @Test
     void createBookSuccessful() {
         // Given
         CreateBookRequest request = CreateBookRequest.builder()
-                .isbn("978-1")
+                .isbn("978-0-13-235088-4")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .build();
 
-        when(bookRepository.findFirstByIsbn("978-1")).thenReturn(Optional.empty());
+        when(bookRepository.findFirstByIsbn13(9780132350884L)).thenReturn(Optional.empty());
 
         Book saved = Book.builder()
                 .id(1L)
-                .isbn("978-1")
+                .isbn("9780132350884")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .status(BookStatus.AVAILABLE)
@@ -62,7 +81,7 @@ class BookServiceTest {
         BookResponse response = bookService.createBook(request);
 
         // Then
-        verify(bookRepository).findFirstByIsbn("978-1");
+        verify(bookRepository).findFirstByIsbn13(9780132350884L);
         verify(bookRepository).save(any(Book.class));
 
         ArgumentCaptor<Book> captor = ArgumentCaptor.forClass(Book.class);
@@ -70,13 +89,16 @@ class BookServiceTest {
         Book toSave = captor.getValue();
 
         assertThat(toSave.getId()).isNull();
-        assertThat(toSave.getIsbn()).isEqualTo("978-1");
+        assertThat(toSave.getIsbn()).isEqualTo("9780132350884");
+        assertThat(toSave.getIsbn13()).isEqualTo(9780132350884L);
         assertThat(toSave.getTitle()).isEqualTo("Clean Code");
         assertThat(toSave.getAuthor()).isEqualTo("Robert C. Martin");
         assertThat(toSave.getStatus()).isEqualTo(BookStatus.AVAILABLE);
 
+        verify(eventPublisher).publishEvent(new BookCreatedEvent(1L, "9780132350884"));
+
         assertThat(response.getId()).isEqualTo(1L);
-        assertThat(response.getIsbn()).isEqualTo("978-1");
+        assertThat(response.getIsbn()).isEqualTo("9780132350884");
         assertThat(response.getTitle()).isEqualTo("Clean Code");
         assertThat(response.getAuthor()).isEqualTo("Robert C. Martin");
         assertThat(response.getBookStatus()).isEqualTo(BookStatus.AVAILABLE);
@@ -86,24 +108,24 @@ class BookServiceTest {
     void createBookSuccessfulWhenExistingCopyHasSameMetadata() {
         // Given
         CreateBookRequest request = CreateBookRequest.builder()
-                .isbn("978-1")
+                .isbn("978-0-13-235088-4")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .build();
 
         Book existing = Book.builder()
                 .id(1L)
-                .isbn("978-1")
+                .isbn("9780132350884")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .status(BookStatus.AVAILABLE)
                 .build();
 
-        when(bookRepository.findFirstByIsbn("978-1")).thenReturn(Optional.of(existing));
+        when(bookRepository.findFirstByIsbn13(9780132350884L)).thenReturn(Optional.of(existing));
 
         Book saved = Book.builder()
                 .id(2L)
-                .isbn("978-1")
+                .isbn("9780132350884")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .status(BookStatus.AVAILABLE)
@@ -114,11 +136,11 @@ class BookServiceTest {
         BookResponse response = bookService.createBook(request);
 
         // Then
-        verify(bookRepository).findFirstByIsbn("978-1");
+        verify(bookRepository).findFirstByIsbn13(9780132350884L);
         verify(bookRepository).save(any(Book.class));
 
         assertThat(response.getId()).isEqualTo(2L);
-        assertThat(response.getIsbn()).isEqualTo("978-1");
+        assertThat(response.getIsbn()).isEqualTo("9780132350884");
         assertThat(response.getTitle()).isEqualTo("Clean Code");
         assertThat(response.getAuthor()).isEqualTo("Robert C. Martin");
     }
@@ -127,20 +149,20 @@ class BookServiceTest {
     void createBookWillThrowExceptionWhenIsbnConflict() {
         // Given
         CreateBookRequest request = CreateBookRequest.builder()
-                .isbn("978-1")
+                .isbn("978-0-13-235088-4")
                 .title("Some Other Title")
                 .author("Someone Else")
                 .build();
 
         Book existing = Book.builder()
                 .id(1L)
-                .isbn("978-1")
+                .isbn("9780132350884")
                 .title("Clean Code")
                 .author("Robert C. Martin")
                 .status(BookStatus.AVAILABLE)
                 .build();
 
-        when(bookRepository.findFirstByIsbn("978-1")).thenReturn(Optional.of(existing));
+        when(bookRepository.findFirstByIsbn13(9780132350884L)).thenReturn(Optional.of(existing));
 
         // When
         BusinessException ex = assertThrows(
@@ -150,10 +172,60 @@ class BookServiceTest {
 
         // Then
         assertThat(ex.getMessage()).isEqualTo("ISBN already exists with different title/author");
-        verify(bookRepository).findFirstByIsbn("978-1");
+        verify(bookRepository).findFirstByIsbn13(9780132350884L);
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void createBookMatchesExistingCopyRegisteredWithIsbn10() {
+        // Given
+        CreateBookRequest request = CreateBookRequest.builder()
+                .isbn("0-13-235088-2")
+                .title("Some Other Title")
+                .author("Someone Else")
+                .build();
+
+        Book existing = Book.builder()
+                .id(1L)
+                .isbn("9780132350884")
+                .isbn13(9780132350884L)
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .status(BookStatus.AVAILABLE)
+                .build();
+
+        when(bookRepository.findFirstByIsbn13(9780132350884L)).thenReturn(Optional.of(existing));
+
+        // When
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> bookService.createBook(request)
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("ISBN already exists with different title/author");
+    }
+
+    @Test
+    void createBookWillThrowExceptionWhenIsbnIsInvalid() {
+        // Given
+        CreateBookRequest request = CreateBookRequest.builder()
+                .isbn("978-0-13-235088-5")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .build();
+
+        // When
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> bookService.createBook(request)
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("ISBN is not a valid ISBN-10 or ISBN-13");
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     void getBooksSuccessful() {
         // Given
@@ -176,13 +248,14 @@ class BookServiceTest {
                 .build();
 
         Page<Book> page = new PageImpl<>(List.of(book1, book2), pageable, 2);
-        when(bookRepository.findAll(pageable)).thenReturn(page);
+        when(bookRepository.findAll(ArgumentMatchers.<Specification<Book>>any(), eq(PageRequest.of(0, 20, Sort.by("id")))))
+                .thenReturn(page);
 
         // When
-        Page<BookResponse> result = bookService.getBooks(pageable);
+        Page<BookResponse> result = bookService.getBooks(new BookFilter(), null, pageable);
 
         // Then
-        verify(bookRepository).findAll(pageable);
+        verify(bookRepository).findAll(ArgumentMatchers.<Specification<Book>>any(), eq(PageRequest.of(0, 20, Sort.by("id"))));
         assertThat(result.getTotalElements()).isEqualTo(2);
         assertThat(result.getContent()).hasSize(2);
 
@@ -197,4 +270,146 @@ class BookServiceTest {
         assertThat(second.getBookStatus()).isEqualTo(BookStatus.BORROWED);
     }
 
-}
\ No newline at end of file
+    @Test
+    void getBooksByAuthorAreSortedByTitleByDefault() {
+        // Given
+        BookFilter filter = BookFilter.builder()
+                .status(BookStatus.AVAILABLE)
+                .author("Robert C. Martin")
+                .build();
+        when(bookRepository.findAll(ArgumentMatchers.<Specification<Book>>any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(book(1L, BookStatus.AVAILABLE))));
+
+        // When
+        Page<BookResponse> result = bookService.getBooks(filter, null, PageRequest.of(1, 10));
+
+        // Then
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(bookRepository).findAll(ArgumentMatchers.<Specification<Book>>any(), pageable.capture());
+        assertThat(pageable.getValue()).isEqualTo(PageRequest.of(1, 10, Sort.by("title", "id")));
+        assertThat(result.getContent()).extracting(BookResponse::getId).containsExactly(1L);
+    }
+
+    @Test
+    void getBooksWillThrowBusinessExceptionWhenSortCannotBeReadFromAnIndex() {
+        // Given
+        BookFilter filter = BookFilter.builder()
+                .status(BookStatus.AVAILABLE)
+                .build();
+
+        // When
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> bookService.getBooks(filter, BookService.SortBy.TITLE, PageRequest.of(0, 20))
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("Sorting by TITLE is not supported with these filters, use one of [ID]");
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void getBooksWillThrowBusinessExceptionWhenIsbnFilterIsInvalid() {
+        // Given
+        BookFilter filter = BookFilter.builder()
+                .isbn("978-0-13-235088-5")
+                .build();
+
+        // When
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> bookService.getBooks(filter, null, PageRequest.of(0, 20))
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("ISBN is not a valid ISBN-10 or ISBN-13");
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void getBookIsServedFromCacheAfterFirstRead() {
+        // Given
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1L, BookStatus.AVAILABLE)));
+
+        // When
+        bookService.getBook(1L);
+        BookResponse response = bookService.getBook(1L);
+
+        // Then
+        verify(bookRepository, times(1)).findById(1L);
+        assertThat(response.getTitle()).isEqualTo("Clean Code");
+        assertThat(response.getBookStatus()).isEqualTo(BookStatus.AVAILABLE);
+    }
+
+    @Test
+    void getBookIsReloadedAfterLoanEvent() {
+        // Given
+        when(bookRepository.findById(1L))
+                .thenReturn(Optional.of(book(1L, BookStatus.AVAILABLE)))
+                .thenReturn(Optional.of(book(1L, BookStatus.BORROWED)));
+        bookService.getBook(1L);
+
+        // When
+        bookCache.onLoanEvent(new LoanEvent(LoanEvent.Type.BORROWED, 10L, 1L, "9780132350884", "Clean Code",
+                "Robert C. Martin", 5L, LocalDateTime.now()));
+        BookResponse response = bookService.getBook(1L);
+
+        // Then
+        verify(bookRepository, times(2)).findById(1L);
+        assertThat(response.getBookStatus()).isEqualTo(BookStatus.BORROWED);
+    }
+
+    @Test
+    void getBookWillThrowExceptionWhenBookDoesNotExist() {
+        // Given
+        when(bookRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // When
+        ResourceNotFoundException ex = assertThrows(
+                ResourceNotFoundException.class,
+                () -> bookService.getBook(99L)
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("Book not found with id: 99");
+    }
+
+    @Test
+    void getBooksByIdsLoadsOnlyMissingBooksInOneQuery() {
+        // Given
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1L, BookStatus.AVAILABLE)));
+        bookService.getBook(1L);
+        when(bookRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(book(2L, BookStatus.BORROWED)));
+
+        // When
+        List<BookResponse> result = bookService.getBooksByIds(List.of(2L, 1L, 3L, 2L));
+
+        // Then
+        verify(bookRepository).findAllById(Set.of(2L, 3L));
+        assertThat(result).extracting(BookResponse::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void getBooksByIdsWillThrowExceptionWhenTooManyIds() {
+        // When
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> bookService.getBooksByIds(List.of(1L, 2L, 3L, 4L))
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("At most 3 ids can be requested at once");
+        verifyNoInteractions(bookRepository);
+    }
+
+    private static Book book(Long id, BookStatus status) {
+        return Book.builder()
+                .id(id)
+                .isbn("9780132350884")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .status(status)
+                .build();
+    }
+
+}
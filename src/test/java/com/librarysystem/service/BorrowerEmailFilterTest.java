@@ -0,0 +1,67 @@
+package com.librarysystem.service;
+
+import com.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowerEmailFilterTest {
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    private BorrowerEmailFilter borrowerEmailFilter;
+
+    @BeforeEach
+    void setUp() {
+        borrowerEmailFilter = new BorrowerEmailFilter(borrowerRepository, 10_000, 0.01, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void mightContainReturnsTrueForEveryEmailBeforeLoading() {
+        assertThat(borrowerEmailFilter.mightContain("john@example.com")).isTrue();
+    }
+
+    @Test
+    void mightContainMatchesLoadedEmailsIgnoringCaseAndWhitespace() {
+        // Given
+        when(borrowerRepository.streamAllEmails()).thenReturn(Stream.of("John@Example.com"));
+
+        // When
+        borrowerEmailFilter.loadFromDatabase();
+
+        // Then
+        assertThat(borrowerEmailFilter.mightContain("john@example.com")).isTrue();
+        assertThat(borrowerEmailFilter.mightContain("  JOHN@EXAMPLE.COM ")).isTrue();
+        assertThat(borrowerEmailFilter.mightContain("jane@example.com")).isFalse();
+    }
+
+    @Test
+    void falsePositiveRateStaysCloseToConfiguredRate() {
+        // Given
+        when(borrowerRepository.streamAllEmails())
+                .thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "student" + i + "@example.com"));
+        borrowerEmailFilter.loadFromDatabase();
+
+        // When
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> borrowerEmailFilter.mightContain("applicant" + i + "@example.com"))
+                .count();
+
+        // Then
+        assertThat(IntStream.range(0, 10_000)
+                .allMatch(i -> borrowerEmailFilter.mightContain("student" + i + "@example.com"))).isTrue();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+}
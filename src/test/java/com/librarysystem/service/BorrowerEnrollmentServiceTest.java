@@ -0,0 +1,205 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.BulkEnrollmentResponse;
+import com.librarysystem.dto.response.BulkEnrollmentRowResult;
+import com.librarysystem.dto.response.BulkEnrollmentRowResult.Status;
+import com.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowerEnrollmentServiceTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BorrowerEmailFilter borrowerEmailFilter;
+
+    private BorrowerEnrollmentService borrowerEnrollmentService;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeAll
+    static void setUpValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = validatorFactory.getValidator();
+        borrowerEmailFilter = new BorrowerEmailFilter(borrowerRepository, 1000, 0.01, new SimpleMeterRegistry());
+        borrowerEnrollmentService = new BorrowerEnrollmentService(borrowerRepository, borrowerEmailFilter, jdbcTemplate,
+                transactionManager, JsonMapper.builder().build(), validator, 2);
+    }
+
+    @Test
+    void enrollCsvCreatesRowsAndReportsDuplicatesAndInvalidRows() {
+        // Given
+        stubBatchInsert();
+        when(borrowerRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+
+        String csv = """
+                name,email
+                John Doe,john@example.com
+                "Doe, Jane",jane@example.com
+                John Again,JOHN@example.com
+                Taken,taken@example.com
+                No Email,not-an-email
+                """;
+
+        // When
+        BulkEnrollmentResponse response = borrowerEnrollmentService.enroll(body(csv), BorrowerEnrollmentService.Format.CSV);
+
+        // Then
+        assertThat(response.getTotalRows()).isEqualTo(5);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(3);
+
+        List<BulkEnrollmentRowResult> rows = response.getRows();
+        assertThat(rows).extracting(BulkEnrollmentRowResult::getRow).containsExactly(2, 3, 4, 5, 6);
+        assertThat(rows).extracting(BulkEnrollmentRowResult::getStatus).containsExactly(
+                Status.CREATED, Status.CREATED, Status.DUPLICATE_IN_BATCH, Status.EMAIL_TAKEN, Status.INVALID);
+        assertThat(rows.get(0).getBorrowerId()).isEqualTo(1L);
+        assertThat(rows.get(1).getBorrowerId()).isEqualTo(2L);
+        assertThat(rows.get(4).getMessage()).isEqualTo("email: Email must be valid");
+
+        // Chunks of 2 valid, unique rows: (john, jane) then (taken)
+        verify(borrowerRepository, times(2)).findExistingEmails(anyCollection());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class));
+        assertThat(borrowerEmailFilter.mightContain("jane@example.com")).isTrue();
+    }
+
+    @Test
+    void enrollNdjsonReportsMalformedLines() {
+        // Given
+        stubBatchInsert();
+        when(borrowerRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+
+        String ndjson = """
+                {"name":"John Doe","email":"john@example.com"}
+                {"name":"Broken"
+                """;
+
+        // When
+        BulkEnrollmentResponse response = borrowerEnrollmentService.enroll(body(ndjson), BorrowerEnrollmentService.Format.NDJSON);
+
+        // Then
+        assertThat(response.getRows()).extracting(BulkEnrollmentRowResult::getStatus)
+                .containsExactly(Status.CREATED, Status.INVALID);
+        assertThat(response.getRows().get(1).getMessage()).isEqualTo("Malformed JSON");
+    }
+
+    @Test
+    void enrollRejectsTooLongFieldsBeforeInserting() {
+        // Given
+        String csv = "name,email\n" + "N".repeat(256) + ",long@example.com\n";
+
+        // When
+        BulkEnrollmentResponse response = borrowerEnrollmentService.enroll(body(csv), BorrowerEnrollmentService.Format.CSV);
+
+        // Then
+        assertThat(response.getRows()).extracting(BulkEnrollmentRowResult::getStatus).containsExactly(Status.INVALID);
+        assertThat(response.getRows().get(0).getMessage()).isEqualTo("name: Name must be at most 255 characters");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void enrollReportsOnlyEmailConstraintViolationsAsTakenWhenRetryingRowByRow() {
+        // Given
+        when(borrowerRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class)))
+                .thenAnswer(invocation -> {
+                    SqlParameterSource[] params = invocation.getArgument(1);
+                    if (params.length > 1) {
+                        throw new DuplicateKeyException("batch");
+                    }
+                    String email = (String) params[0].getValue("email");
+                    if (email.equals("raced@example.com")) {
+                        throw new DuplicateKeyException("insert",
+                                new SQLException("Duplicate entry 'raced@example.com' for key 'borrowers.uq_borrower_email'"));
+                    }
+                    throw new DataIntegrityViolationException("insert",
+                            new SQLException("Data too long for column 'name' at row 1"));
+                });
+
+        String csv = """
+                name,email
+                Raced,raced@example.com
+                Too Long,other@example.com
+                """;
+
+        // When
+        BulkEnrollmentResponse response = borrowerEnrollmentService.enroll(body(csv), BorrowerEnrollmentService.Format.CSV);
+
+        // Then
+        assertThat(response.getRows()).extracting(BulkEnrollmentRowResult::getStatus)
+                .containsExactly(Status.EMAIL_TAKEN, Status.INVALID);
+        assertThat(response.getRows().get(1).getMessage()).isEqualTo("Rejected by the database");
+        assertThat(response.getCreated()).isZero();
+    }
+
+    @Test
+    void parseCsvLineHandlesQuotedFields() {
+        assertThat(BorrowerEnrollmentService.parseCsvLine("\"Doe, \"\"JJ\"\" Jane\",jane@example.com"))
+                .containsExactly("Doe, \"JJ\" Jane", "jane@example.com");
+        assertThat(BorrowerEnrollmentService.parseCsvLine("\"unterminated,jane@example.com")).isNull();
+    }
+
+    private void stubBatchInsert() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class)))
+                .thenAnswer(invocation -> {
+                    SqlParameterSource[] params = invocation.getArgument(1);
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    for (int i = 0; i < params.length; i++) {
+                        keyHolder.getKeyList().add(Map.of("id", nextId.getAndIncrement()));
+                    }
+                    return new int[params.length];
+                });
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
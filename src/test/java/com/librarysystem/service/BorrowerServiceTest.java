@@ -3,14 +3,19 @@ package com.librarysystem.service;
 import com.librarysystem.dto.request.CreateBorrowerRequest;
 import com.librarysystem.dto.response.BorrowerResponse;
 import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.enums.BorrowerCategory;
 import com.librarysystem.exception.DuplicateActionException;
 import com.librarysystem.repository.BorrowerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,11 +28,15 @@ class BorrowerServiceTest {
     @Mock
     private BorrowerRepository borrowerRepository;
 
+    private BorrowerEmailFilter borrowerEmailFilter;
+
     private BorrowerService borrowerService;
 
     @BeforeEach
     void setUp() {
-        borrowerService = new BorrowerService(borrowerRepository);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        borrowerEmailFilter = new BorrowerEmailFilter(borrowerRepository, 1000, 0.01, meterRegistry);
+        borrowerService = new BorrowerService(borrowerRepository, borrowerEmailFilter, meterRegistry);
     }
 
     @Test
@@ -61,10 +70,12 @@ class BorrowerServiceTest {
         assertThat(toSave.getId()).isNull();
         assertThat(toSave.getName()).isEqualTo("John Doe");
         assertThat(toSave.getEmail()).isEqualTo("john@example.com");
+        assertThat(toSave.getCategory()).isEqualTo(BorrowerCategory.STANDARD);
 
         assertThat(response.getId()).isEqualTo(1L);
         assertThat(response.getName()).isEqualTo("John Doe");
         assertThat(response.getEmail()).isEqualTo("john@example.com");
+        assertThat(response.getCategory()).isEqualTo(BorrowerCategory.STANDARD);
     }
 
     @Test
@@ -85,4 +96,53 @@ class BorrowerServiceTest {
         verify(borrowerRepository).existsByEmail("john@example.com");
         verify(borrowerRepository, never()).save(any(Borrower.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void createBorrowerSkipsEmailLookupWhenFilterHasNotSeenEmail() {
+        // Given
+        when(borrowerRepository.streamAllEmails()).thenReturn(Stream.of("jane@example.com"));
+        borrowerEmailFilter.loadFromDatabase();
+
+        CreateBorrowerRequest request = CreateBorrowerRequest.builder()
+                .name("John Doe")
+                .email("john@example.com")
+                .build();
+
+        Borrower saved = Borrower.builder()
+                .id(1L)
+                .name("John Doe")
+                .email("john@example.com")
+                .build();
+        when(borrowerRepository.save(any(Borrower.class))).thenReturn(saved);
+
+        // When
+        BorrowerResponse response = borrowerService.createBorrower(request);
+
+        // Then
+        verify(borrowerRepository, never()).existsByEmail(any());
+        assertThat(response.getId()).isEqualTo(1L);
+        assertThat(borrowerEmailFilter.mightContain("john@example.com")).isTrue();
+    }
+
+    @Test
+    void createBorrowerWillThrowExceptionWhenEmailConstraintIsViolated() {
+        // Given
+        when(borrowerRepository.streamAllEmails()).thenReturn(Stream.empty());
+        borrowerEmailFilter.loadFromDatabase();
+
+        CreateBorrowerRequest request = CreateBorrowerRequest.builder()
+                .name("John Doe")
+                .email("john@example.com")
+                .build();
+
+        when(borrowerRepository.save(any(Borrower.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_borrower_email"));
+
+        // When
+        // Then
+        DuplicateActionException ex = assertThrows(DuplicateActionException.class,
+                () -> borrowerService.createBorrower(request));
+        assertThat(ex.getMessage()).isEqualTo("Email is taken");
+        verify(borrowerRepository, never()).existsByEmail(any());
+    }
+}
@@ -0,0 +1,64 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogVersionTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Test
+    void etagChangesWhenCatalogChanges() {
+        // Given
+        CatalogVersion catalogVersion = new CatalogVersion(Duration.ofSeconds(5), Clock.fixed(NOW, ZoneOffset.UTC));
+        String before = catalogVersion.etag();
+
+        // When
+        catalogVersion.bump();
+
+        // Then
+        assertThat(catalogVersion.etag()).isNotEqualTo(before).startsWith("W/\"");
+    }
+
+    @Test
+    void etagIsStableWithinTtl() {
+        // Given
+        CatalogVersion first = new CatalogVersion(Duration.ofSeconds(5), Clock.fixed(NOW, ZoneOffset.UTC));
+        String etag = first.etag();
+
+        // When
+        // Then
+        assertThat(first.etag()).isEqualTo(etag);
+        assertThat(etag).endsWith("-0-" + NOW.toEpochMilli() / 5000 + "\"");
+    }
+
+    @Test
+    void etagRollsOverAfterTtl() {
+        // Given
+        String before = new CatalogVersion(Duration.ofSeconds(5), Clock.fixed(NOW, ZoneOffset.UTC)).etag();
+
+        // When
+        String after = new CatalogVersion(Duration.ofSeconds(5), Clock.fixed(NOW.plusSeconds(5), ZoneOffset.UTC)).etag();
+
+        // Then
+        assertThat(after.substring(after.lastIndexOf('-'))).isNotEqualTo(before.substring(before.lastIndexOf('-')));
+    }
+
+    @Test
+    void etagsOfDifferentInstancesNeverMatch() {
+        // Given
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+        // When
+        // Then
+        assertThat(new CatalogVersion(Duration.ofSeconds(5), clock).etag())
+                .isNotEqualTo(new CatalogVersion(Duration.ofSeconds(5), clock).etag());
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.librarysystem.service;
+
+import com.librarysystem.event.LoanEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CirculationJournalTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedRecordsAreReadBackAfterReopening() throws IOException {
+        // Given
+        Path path = dir.resolve("circulation.journal");
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            journal.readAll();
+            journal.append(LoanEvent.Type.BORROWED, 42L, 7L, 3L, 1, NOW);
+            journal.append(LoanEvent.Type.RETURNED, 42L, 7L, 3L, 0, NOW.plusMinutes(5));
+            journal.force();
+        }
+
+        // When
+        List<JournalRecord> records;
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            records = journal.readAll();
+        }
+
+        // Then
+        assertThat(records).containsExactly(
+                new JournalRecord(1, LoanEvent.Type.BORROWED, 42L, 7L, 3L, 1, NOW),
+                new JournalRecord(2, LoanEvent.Type.RETURNED, 42L, 7L, 3L, 0, NOW.plusMinutes(5)));
+    }
+
+    @Test
+    void readStopsAtRecordWithBadChecksum() throws IOException {
+        // Given
+        Path path = dir.resolve("circulation.journal");
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            journal.readAll();
+            journal.append(LoanEvent.Type.BORROWED, 1L, 1L, 1L, 1, NOW);
+            journal.append(LoanEvent.Type.BORROWED, 2L, 2L, 1L, 2, NOW);
+            journal.append(LoanEvent.Type.BORROWED, 3L, 3L, 1L, 3, NOW);
+            journal.force();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // second record, the first slot of the file is the header
+            file.seek(CirculationJournal.RECORD_SIZE * 2L + 20);
+            file.write(0x7f);
+        }
+
+        // When
+        List<JournalRecord> records;
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            records = journal.readAll();
+        }
+
+        // Then
+        assertThat(records).extracting(JournalRecord::loanId).containsExactly(1L);
+    }
+
+    @Test
+    void releasedRecordsAreNotReadBack() throws IOException {
+        // Given
+        Path path = dir.resolve("circulation.journal");
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            journal.readAll();
+            journal.append(LoanEvent.Type.BORROWED, 1L, 1L, 1L, 1, NOW);
+            journal.append(LoanEvent.Type.BORROWED, 2L, 2L, 1L, 2, NOW);
+            journal.append(LoanEvent.Type.BORROWED, 3L, 3L, 1L, 3, NOW);
+            journal.release(2);
+            journal.append(LoanEvent.Type.RETURNED, 1L, 1L, 1L, 2, NOW);
+            journal.force();
+        }
+
+        // When
+        List<JournalRecord> records;
+        try (CirculationJournal journal = new CirculationJournal(path, 4096)) {
+            records = journal.readAll();
+        }
+
+        // Then
+        assertThat(records).extracting(JournalRecord::sequence, JournalRecord::loanId)
+                .containsExactly(tuple(3L, 3L), tuple(4L, 1L));
+    }
+
+    @Test
+    void releasedSlotsAreReusedWhenTheRingWrapsAround() throws IOException {
+        // Given
+        Path path = dir.resolve("circulation.journal");
+        try (CirculationJournal journal = new CirculationJournal(path, CirculationJournal.RECORD_SIZE * 4L)) {
+            journal.readAll();
+            for (long loanId = 1; loanId <= 7; loanId++) {
+                journal.append(LoanEvent.Type.BORROWED, loanId, loanId, 1L, 1, NOW);
+                journal.release(loanId - 1);
+            }
+            journal.force();
+        }
+
+        // When
+        List<JournalRecord> records;
+        try (CirculationJournal journal = new CirculationJournal(path, CirculationJournal.RECORD_SIZE * 4L)) {
+            records = journal.readAll();
+        }
+
+        // Then
+        assertThat(records).extracting(JournalRecord::sequence).containsExactly(7L);
+    }
+
+    @Test
+    void appendFailsWhenJournalIsFullUntilRecordsAreReleased() throws IOException {
+        // Given
+        try (CirculationJournal journal = new CirculationJournal(dir.resolve("circulation.journal"),
+                CirculationJournal.RECORD_SIZE * 3L)) {
+            journal.readAll();
+            journal.append(LoanEvent.Type.BORROWED, 1L, 1L, 1L, 1, NOW);
+            journal.append(LoanEvent.Type.BORROWED, 2L, 2L, 1L, 2, NOW);
+
+            // When
+            // Then
+            assertThat(journal.capacity()).isEqualTo(2);
+            assertThat(journal.hasRoom()).isFalse();
+            assertThrows(IllegalStateException.class,
+                    () -> journal.append(LoanEvent.Type.BORROWED, 3L, 3L, 1L, 3, NOW));
+
+            journal.release(1);
+            assertThat(journal.append(LoanEvent.Type.BORROWED, 3L, 3L, 1L, 3, NOW).sequence()).isEqualTo(3L);
+        }
+    }
+
+}
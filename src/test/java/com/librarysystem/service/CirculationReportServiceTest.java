@@ -0,0 +1,77 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.CirculationStatResponse;
+import com.librarysystem.entity.enums.StatDimension;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.repository.CirculationDailyStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CirculationReportServiceTest {
+
+    @Mock
+    private CirculationDailyStatRepository circulationDailyStatRepository;
+
+    private CirculationReportService circulationReportService;
+
+    @BeforeEach
+    void setUp() {
+        circulationReportService = new CirculationReportService(circulationDailyStatRepository);
+    }
+
+    @Test
+    void getCirculationReadsRollups() {
+        // Given
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        List<CirculationStatResponse> stats = List.of(new CirculationStatResponse("978-1", 3, 2));
+        when(circulationDailyStatRepository.sumByKey(StatDimension.ISBN, day, day, PageRequest.of(0, 20)))
+                .thenReturn(stats);
+
+        // When
+        List<CirculationStatResponse> result = circulationReportService.getCirculation(StatDimension.ISBN, day, day, 20);
+
+        // Then
+        assertThat(result).isEqualTo(stats);
+    }
+
+    @Test
+    void getCirculationWillThrowBusinessExceptionWhenFromIsAfterTo() {
+        // When
+        // Then
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> circulationReportService.getCirculation(StatDimension.ISBN,
+                        LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 1), 20)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("from must not be after to");
+        verifyNoInteractions(circulationDailyStatRepository);
+    }
+
+    @Test
+    void getCirculationWillThrowBusinessExceptionWhenRangeIsTooLong() {
+        // When
+        // Then
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> circulationReportService.getCirculation(StatDimension.AUTHOR,
+                        LocalDate.of(2025, 1, 1), LocalDate.of(2026, 3, 1), 20)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Date range must be at most 366 days");
+        verifyNoInteractions(circulationDailyStatRepository);
+    }
+
+}
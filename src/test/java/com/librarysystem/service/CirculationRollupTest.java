@@ -0,0 +1,106 @@
+package com.librarysystem.service;
+
+import com.librarysystem.event.LoanEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CirculationRollupTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CirculationRollup circulationRollup;
+
+    @BeforeEach
+    void setUp() {
+        circulationRollup = new CirculationRollup(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void flushAddsCountsPerIsbnAuthorAndBorrower() {
+        // Given
+        circulationRollup.onLoanEvent(event(LoanEvent.Type.BORROWED, "978-1", 1L));
+        circulationRollup.onLoanEvent(event(LoanEvent.Type.RETURNED, "978-1", 1L));
+        circulationRollup.onLoanEvent(event(LoanEvent.Type.BORROWED, "978-2", 2L));
+
+        // When
+        circulationRollup.flush();
+
+        // Then
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+
+        Map<String, List<Object>> rows = Arrays.stream(captor.getValue())
+                .collect(Collectors.toMap(
+                        row -> row.getValue("dimension") + ":" + row.getValue("dimensionKey"),
+                        row -> List.of(row.getValue("borrowCount"), row.getValue("returnCount"))));
+
+        assertThat(rows).containsOnly(
+                Map.entry("ISBN:978-1", List.of(1L, 1L)),
+                Map.entry("ISBN:978-2", List.of(1L, 0L)),
+                Map.entry("AUTHOR:Robert C. Martin", List.of(2L, 1L)),
+                Map.entry("BORROWER:1", List.of(1L, 1L)),
+                Map.entry("BORROWER:2", List.of(1L, 0L)));
+        assertThat(captor.getValue()[0].getValue("statDate")).isEqualTo(LocalDate.of(2026, 3, 2));
+    }
+
+    @Test
+    void flushDoesNothingWithoutEvents() {
+        // When
+        circulationRollup.flush();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flushRollsBackAndKeepsCountsWhenWriteFails() {
+        // Given
+        circulationRollup.onLoanEvent(event(LoanEvent.Type.BORROWED, "978-1", 1L));
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[3]);
+
+        // When
+        circulationRollup.flush();
+        circulationRollup.flush();
+
+        // Then
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), captor.capture());
+        assertThat(captor.getAllValues().get(1)).hasSize(3);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    private static LoanEvent event(LoanEvent.Type type, String isbn, Long borrowerId) {
+        return new LoanEvent(type, 1L, 1L, isbn, "Clean Code", "Robert C. Martin", borrowerId, NOW);
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.librarysystem.service;
+
+import com.librarysystem.entity.Book;
+import com.librarysystem.entity.Borrower;
+import com.librarysystem.entity.LoanArchive;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the SQL of {@link CirculationStore} against in-memory H2 in MySQL mode, including replaying records that
+ * already reached the database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:circulation-store;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.librarysystem=WARN"
+})
+class CirculationStoreTest {
+
+    private static final LocalDateTime BORROWED_AT = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private CirculationStore store;
+    private TransactionTemplate transactionTemplate;
+    private long firstBookId;
+    private long secondBookId;
+    private long borrowerId;
+
+    @BeforeEach
+    void setUp() {
+        store = new CirculationStore(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        firstBookId = bookRepository.save(Book.builder()
+                .isbn("9780132350884").isbn13(9780132350884L).title("Clean Code").author("Robert C. Martin")
+                .build()).getId();
+        secondBookId = bookRepository.save(Book.builder()
+                .isbn("9780134685991").isbn13(9780134685991L).title("Effective Java").author("Joshua Bloch")
+                .build()).getId();
+        borrowerId = borrowerRepository.save(Borrower.builder()
+                .name("Reader").email("store-reader-" + firstBookId + "@example.com").build()).getId();
+    }
+
+    @Test
+    void replicatingRecordsAgainLeavesTheSameRows() {
+        // Given
+        long firstLoanId = 1_000 + firstBookId;
+        long secondLoanId = 1_000 + secondBookId;
+        List<JournalRecord> records = List.of(
+                new JournalRecord(1, LoanEvent.Type.BORROWED, firstLoanId, firstBookId, borrowerId, 1, BORROWED_AT),
+                new JournalRecord(2, LoanEvent.Type.BORROWED, secondLoanId, secondBookId, borrowerId, 2, BORROWED_AT),
+                new JournalRecord(3, LoanEvent.Type.RETURNED, firstLoanId, firstBookId, borrowerId, 1,
+                        BORROWED_AT.plusDays(3)));
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> store.replicate(records));
+        List<Map<String, Object>> afterFirst = rows();
+        transactionTemplate.executeWithoutResult(status -> store.replicate(records));
+
+        // Then
+        assertThat(rows()).isEqualTo(afterFirst);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id, status, active_book_id, book_title, borrower_name " +
+                        "FROM loans WHERE borrower_id = :id ORDER BY id", Map.of("id", borrowerId)))
+                .extracting(row -> row.get("id"), row -> row.get("status"), row -> row.get("active_book_id"),
+                        row -> row.get("book_title"), row -> row.get("borrower_name"))
+                .containsExactly(
+                        tuple(firstLoanId, "RETURNED", null, "Clean Code", "Reader"),
+                        tuple(secondLoanId, "ACTIVE", secondBookId, "Effective Java", "Reader"));
+        assertThat(jdbcTemplate.queryForList("SELECT id, status FROM books WHERE id IN (:ids) ORDER BY id",
+                Map.of("ids", List.of(firstBookId, secondBookId))))
+                .extracting(row -> row.get("status"))
+                .containsExactly("AVAILABLE", "BORROWED");
+        assertThat(jdbcTemplate.queryForObject("SELECT active_loan_count FROM borrowers WHERE id = :id",
+                Map.of("id", borrowerId), Integer.class)).isEqualTo(1);
+        assertThat(store.findBook(firstBookId).orElseThrow().activeLoan).isNull();
+        assertThat(store.findBook(secondBookId).orElseThrow().activeLoan)
+                .isEqualTo(new CirculationStore.ActiveLoan(secondLoanId, borrowerId, BORROWED_AT));
+    }
+
+    @Test
+    void maxLoanIdIncludesArchivedLoans() {
+        // Given
+        long archivedId = 9_000_000 + firstBookId;
+        transactionTemplate.executeWithoutResult(status -> entityManager.persist(LoanArchive.builder()
+                .id(archivedId).bookId(firstBookId).borrowerId(borrowerId)
+                .bookIsbn("9780132350884").bookTitle("Clean Code").bookAuthor("Robert C. Martin")
+                .borrowerName("Reader").borrowerEmail("reader@example.com")
+                .status(LoanStatus.RETURNED).borrowedAt(BORROWED_AT).returnedAt(BORROWED_AT.plusDays(1))
+                .archivedAt(BORROWED_AT.plusDays(2))
+                .build()));
+
+        // When
+        long maxLoanId = store.maxLoanId();
+
+        // Then
+        assertThat(maxLoanId).isEqualTo(archivedId);
+    }
+
+    private List<Map<String, Object>> rows() {
+        return List.of(
+                jdbcTemplate.queryForList("SELECT * FROM loans ORDER BY id", Map.of()),
+                jdbcTemplate.queryForList("SELECT id, status FROM books ORDER BY id", Map.of()),
+                jdbcTemplate.queryForList("SELECT id, active_loan_count FROM borrowers ORDER BY id", Map.of())
+        ).stream().flatMap(List::stream).toList();
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.CirculationProperties;
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.Loan;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.DuplicateActionException;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitCirculationServiceTest {
+
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitCirculationService circulationService;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        circulationService.destroy();
+    }
+
+    @Test
+    void concurrentBorrowsAreCommittedInOneTransaction() throws Exception {
+        // Given
+        givenSavepoints();
+        startWithGroupSize(2);
+        Loan first = Loan.builder().id(1L).build();
+        Loan second = Loan.builder().id(2L).build();
+        when(loanService.borrow(1L, 7L)).thenReturn(first);
+        when(loanService.borrow(2L, 8L)).thenReturn(second);
+        when(loanService.toLoanResponse(first)).thenReturn(LoanResponse.builder().id(1L).build());
+        when(loanService.toLoanResponse(second)).thenReturn(LoanResponse.builder().id(2L).build());
+
+        // When
+        CompletableFuture<LoanResponse> firstResponse = CompletableFuture.supplyAsync(() -> circulationService.borrowBook(1L, 7L));
+        LoanResponse secondResponse = circulationService.borrowBook(2L, 8L);
+
+        // Then
+        assertThat(firstResponse.get().getId()).isEqualTo(1L);
+        assertThat(secondResponse.getId()).isEqualTo(2L);
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(entityManager, times(2)).flush();
+    }
+
+    @Test
+    void rejectedCommandIsRolledBackAloneAndOthersCommit() throws Exception {
+        // Given
+        givenSavepoints();
+        startWithGroupSize(2);
+        Loan loan = Loan.builder().id(1L).build();
+        when(loanService.borrow(1L, 7L)).thenReturn(loan);
+        when(loanService.borrow(2L, 8L)).thenThrow(new BusinessException("Borrower has reached the limit of 5 active loans"));
+        when(loanService.toLoanResponse(loan)).thenReturn(LoanResponse.builder().id(1L).build());
+
+        // When
+        CompletableFuture<LoanResponse> accepted = CompletableFuture.supplyAsync(() -> circulationService.borrowBook(1L, 7L));
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> circulationService.borrowBook(2L, 8L)
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("Borrower has reached the limit of 5 active loans");
+        assertThat(accepted.get().getId()).isEqualTo(1L);
+        verify(transactionManager, times(1)).commit(any());
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void commandMarkingTheBatchRollbackOnlyRunsAloneAndTheOthersCommitWithoutIt() throws Exception {
+        // Given
+        givenSavepoints();
+        startWithGroupSize(2);
+        SimpleTransactionStatus poisoned = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(poisoned, new SimpleTransactionStatus());
+        Loan loan = Loan.builder().id(1L).build();
+        when(loanService.borrow(1L, 7L)).thenReturn(loan);
+        when(loanService.borrow(2L, 8L)).thenAnswer(invocation -> {
+            // What a repository call failing in the batch transaction does
+            poisoned.setRollbackOnly();
+            throw new DuplicateActionException("Book is already borrowed");
+        });
+        when(loanService.borrowBook(2L, 8L)).thenThrow(new DuplicateActionException("Book is already borrowed"));
+        when(loanService.toLoanResponse(loan)).thenReturn(LoanResponse.builder().id(1L).build());
+
+        // When
+        CompletableFuture<LoanResponse> accepted = CompletableFuture.supplyAsync(() -> circulationService.borrowBook(1L, 7L));
+        DuplicateActionException ex = assertThrows(
+                DuplicateActionException.class,
+                () -> circulationService.borrowBook(2L, 8L)
+        );
+
+        // Then
+        assertThat(ex.getMessage()).isEqualTo("Book is already borrowed");
+        assertThat(accepted.get().getId()).isEqualTo(1L);
+        verify(transactionManager).rollback(poisoned);
+        verify(transactionManager, times(1)).commit(any());
+        verify(loanService).borrowBook(2L, 8L);
+        verify(loanService, never()).borrowBook(1L, 7L);
+    }
+
+    @Test
+    void failedGroupCommitRunsCommandsOneByOne() {
+        // Given
+        givenSavepoints();
+        startWithGroupSize(1);
+        when(loanService.borrow(1L, 7L)).thenReturn(Loan.builder().id(1L).build());
+        doThrow(new CannotAcquireLockException("Deadlock found")).when(transactionManager).commit(any());
+        when(loanService.borrowBook(1L, 7L)).thenReturn(LoanResponse.builder().id(1L).build());
+
+        // When
+        LoanResponse response = circulationService.borrowBook(1L, 7L);
+
+        // Then
+        assertThat(response.getId()).isEqualTo(1L);
+        verify(loanService).borrowBook(1L, 7L);
+    }
+
+    private void givenSavepoints() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.<Savepoint>doReturningWork(any())).thenReturn(mock(Savepoint.class));
+    }
+
+    private void startWithGroupSize(int groupSize) {
+        CirculationProperties properties = new CirculationProperties(Path.of("unused.journal"), DataSize.ofKilobytes(64),
+                true, 100, 10, Duration.ofSeconds(5), Duration.ofSeconds(2), groupSize);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        circulationService = new GroupCommitCirculationService(loanService, entityManager, properties, transactionManager);
+    }
+
+}
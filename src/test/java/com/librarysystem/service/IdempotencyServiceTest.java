@@ -0,0 +1,191 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.BookResponse;
+import com.librarysystem.entity.IdempotencyRecord;
+import com.librarysystem.entity.enums.BookStatus;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, transactionManager, objectMapper,
+                Duration.ofHours(24), 100);
+    }
+
+    @Test
+    void executeRunsActionAndStoresResponseForNewKey() {
+        // Given
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+
+        // When
+        BookResponse response = idempotencyService.execute("key-1", "POST /api/books", BookResponse.class,
+                () -> bookResponse(1L));
+
+        // Then
+        assertThat(response.getId()).isEqualTo(1L);
+
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).saveAndFlush(captor.capture());
+        IdempotencyRecord record = captor.getValue();
+        assertThat(record.getKey()).isEqualTo("key-1");
+        assertThat(record.getRequestHash()).hasSize(64);
+        assertThat(record.getResponseBody()).contains("\"id\":1");
+        assertThat(record.getExpiresAt()).isAfter(LocalDateTime.now());
+        verify(idempotencyRecordRepository, never()).deleteExpiredKey(any(), any());
+    }
+
+    @Test
+    void executeReplaysCachedResponseWithoutRunningActionAgain() {
+        // Given
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        idempotencyService.execute("key-1", "POST /api/books", BookResponse.class,
+                () -> bookResponse(calls.incrementAndGet()));
+        BookResponse replayed = idempotencyService.execute("key-1", "POST /api/books", BookResponse.class,
+                () -> bookResponse(calls.incrementAndGet()));
+
+        // Then
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(replayed.getId()).isEqualTo(1L);
+        assertThat(replayed.getBookStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void executeReplaysStoredResponseFromDatabase() {
+        // Given
+        IdempotencyRecord first = storeAndCapture();
+        IdempotencyService otherNode = new IdempotencyService(idempotencyRecordRepository, transactionManager,
+                objectMapper, Duration.ofHours(24), 100);
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(first));
+
+        // When
+        BookResponse replayed = otherNode.execute("key-1", "POST /api/books", BookResponse.class,
+                () -> bookResponse(2L));
+
+        // Then
+        assertThat(replayed.getId()).isEqualTo(1L);
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void executeRunsActionAgainWhenKeyIsReusedAfterExpiryBeforePurge() {
+        // Given
+        IdempotencyRecord expired = IdempotencyRecord.builder()
+                .key("key-1")
+                .requestHash("0".repeat(64))
+                .responseBody("{\"id\":1}")
+                .createdAt(LocalDateTime.now().minusHours(25))
+                .expiresAt(LocalDateTime.now().minusHours(1))
+                .newRecord(false)
+                .build();
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(expired));
+
+        // When
+        BookResponse response = idempotencyService.execute("key-1", "POST /api/borrowers", BookResponse.class,
+                () -> bookResponse(2L));
+
+        // Then
+        assertThat(response.getId()).isEqualTo(2L);
+        InOrder inOrder = inOrder(idempotencyRecordRepository);
+        inOrder.verify(idempotencyRecordRepository).deleteExpiredKey(eq("key-1"), any(LocalDateTime.class));
+        inOrder.verify(idempotencyRecordRepository).saveAndFlush(any());
+    }
+
+    @Test
+    void executeWillThrowBusinessExceptionWhenKeyIsReusedForDifferentRequest() {
+        // Given
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        idempotencyService.execute("key-1", "POST /api/books", BookResponse.class, () -> bookResponse(1L));
+
+        // When
+        // Then
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> idempotencyService.execute("key-1", "POST /api/borrowers", BookResponse.class,
+                        () -> bookResponse(2L)));
+        assertThat(ex.getMessage()).isEqualTo("Idempotency-Key was already used for a different request");
+    }
+
+    @Test
+    void executeWillThrowDuplicateActionWhenConcurrentRequestStoredKeyFirst() {
+        // Given
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // When
+        // Then
+        DuplicateActionException ex = assertThrows(DuplicateActionException.class,
+                () -> idempotencyService.execute("key-1", "POST /api/books", BookResponse.class,
+                        () -> bookResponse(1L)));
+        assertThat(ex.getMessage()).isEqualTo("A request with this Idempotency-Key is already being processed");
+    }
+
+    @Test
+    void executeWillThrowBusinessExceptionWhenKeyIsTooLong() {
+        // Given
+        String key = "k".repeat(101);
+
+        // When
+        // Then
+        assertThrows(BusinessException.class,
+                () -> idempotencyService.execute(key, "POST /api/books", BookResponse.class, () -> bookResponse(1L)));
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    private IdempotencyRecord storeAndCapture() {
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        idempotencyService.execute("key-1", "POST /api/books", BookResponse.class, () -> bookResponse(1L));
+
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).saveAndFlush(captor.capture());
+        return captor.getValue();
+    }
+
+    private BookResponse bookResponse(long id) {
+        return BookResponse.builder()
+                .id(id)
+                .isbn("978-1")
+                .title("Clean Code")
+                .author("Robert C. Martin")
+                .bookStatus(BookStatus.AVAILABLE)
+                .build();
+    }
+
+}
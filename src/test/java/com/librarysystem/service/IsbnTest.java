@@ -0,0 +1,58 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IsbnTest {
+
+    @Test
+    void parseIgnoresHyphensAndSpaces() {
+        // When
+        // Then
+        assertThat(Isbn.parse("978-0-13-468599-1")).isEqualTo(9780134685991L);
+        assertThat(Isbn.parse("978 0 13 468599 1")).isEqualTo(9780134685991L);
+        assertThat(Isbn.parse("9780134685991")).isEqualTo(9780134685991L);
+    }
+
+    @Test
+    void parseConvertsIsbn10ToIsbn13() {
+        // When
+        // Then
+        assertThat(Isbn.parse("0-13-468599-7")).isEqualTo(9780134685991L);
+        assertThat(Isbn.parse("0-8044-2957-X")).isEqualTo(9780804429573L);
+        assertThat(Isbn.parse("080442957x")).isEqualTo(9780804429573L);
+    }
+
+    @Test
+    void parseRejectsWrongCheckDigits() {
+        // When
+        // Then
+        assertThat(Isbn.parse("978-0-13-468599-2")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("0-13-468599-8")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("0-8044-2957-1")).isEqualTo(Isbn.INVALID);
+    }
+
+    @Test
+    void parseRejectsMalformedInput() {
+        // When
+        // Then
+        assertThat(Isbn.parse(null)).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("978-1")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("97801346859910")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("X-13-468599-7")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("0-8044-2957-X0")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.parse("ISBN 9780134685991")).isEqualTo(Isbn.INVALID);
+        // Valid checksum but not a Bookland prefix
+        assertThat(Isbn.parse("1230000000000")).isEqualTo(Isbn.INVALID);
+    }
+
+    @Test
+    void formatWritesThirteenDigits() {
+        // When
+        // Then
+        assertThat(Isbn.format(Isbn.parse("0-13-468599-7"))).isEqualTo("9780134685991");
+    }
+
+}
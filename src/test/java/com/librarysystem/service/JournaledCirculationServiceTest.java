@@ -0,0 +1,302 @@
+package com.librarysystem.service;
+
+import com.librarysystem.config.CirculationProperties;
+import com.librarysystem.config.LoanLimitProperties;
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.BorrowerCategory;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.BusinessException;
+import com.librarysystem.exception.DuplicateActionException;
+import com.librarysystem.exception.ResourceNotFoundException;
+import com.librarysystem.exception.ServiceUnavailableException;
+import com.librarysystem.service.CirculationStore.ActiveLoan;
+import com.librarysystem.service.CirculationStore.BookState;
+import com.librarysystem.service.CirculationStore.BorrowerState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournaledCirculationServiceTest {
+
+    private static final LocalDateTime BORROWED_AT = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Mock
+    private CirculationStore store;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path dir;
+
+    private CirculationProperties properties;
+    private LoanLimitProperties loanLimits;
+    private JournaledCirculationService circulationService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CirculationProperties(dir.resolve("circulation.journal"), DataSize.ofKilobytes(64), true,
+                100, 10, Duration.ofSeconds(5), Duration.ofMillis(2), 50);
+        loanLimits = new LoanLimitProperties(Map.of(
+                BorrowerCategory.STANDARD, 5,
+                BorrowerCategory.STUDENT, 10,
+                BorrowerCategory.STAFF, 20));
+        circulationService = new JournaledCirculationService(store, loanLimits, properties,
+                mock(PlatformTransactionManager.class), eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        circulationService.destroy();
+    }
+
+    @Test
+    void borrowBookIsJournaledAndReplicated() throws Exception {
+        // Given
+        givenBorrower(1L, 0);
+        givenBook(7L, null);
+        when(store.maxLoanId()).thenReturn(41L);
+        circulationService.start();
+
+        // When
+        LoanResponse response = circulationService.borrowBook(1L, 7L);
+
+        // Then
+        assertThat(response.getId()).isEqualTo(42L);
+        assertThat(response.getBookIsbn()).isEqualTo("978-7");
+        assertThat(response.getBorrowerEmail()).isEqualTo("reader1@example.com");
+        assertThat(response.getStatus()).isEqualTo(LoanStatus.ACTIVE);
+
+        JournalRecord record = replicatedRecords().get(0);
+        assertThat(record.type()).isEqualTo(LoanEvent.Type.BORROWED);
+        assertThat(record.loanId()).isEqualTo(42L);
+        assertThat(record.borrowerActiveLoans()).isEqualTo(1);
+
+        ArgumentCaptor<LoanEvent> event = ArgumentCaptor.forClass(LoanEvent.class);
+        verify(eventPublisher, timeout(2000)).publishEvent(event.capture());
+        assertThat(event.getValue().type()).isEqualTo(LoanEvent.Type.BORROWED);
+        assertThat(event.getValue().loanId()).isEqualTo(42L);
+    }
+
+    @Test
+    void returnBookReleasesTheBookAndTheBorrowersLoan() throws Exception {
+        // Given
+        givenBorrower(1L, 1);
+        givenBook(7L, new ActiveLoan(42L, 1L, BORROWED_AT));
+        circulationService.start();
+
+        // When
+        LoanResponse response = circulationService.returnBook(1L, 7L);
+
+        // Then
+        assertThat(response.getId()).isEqualTo(42L);
+        assertThat(response.getStatus()).isEqualTo(LoanStatus.RETURNED);
+        assertThat(response.getBorrowedAt()).isEqualTo(BORROWED_AT);
+        assertThat(response.getReturnedAt()).isNotNull();
+
+        JournalRecord record = replicatedRecords().get(0);
+        assertThat(record.type()).isEqualTo(LoanEvent.Type.RETURNED);
+        assertThat(record.borrowerActiveLoans()).isZero();
+
+        // the book is available again without another lookup
+        assertThat(circulationService.borrowBook(1L, 7L).getStatus()).isEqualTo(LoanStatus.ACTIVE);
+        verify(store, times(1)).findBook(7L);
+    }
+
+    @Test
+    void borrowBookWillThrowDuplicateActionWhenBookIsBorrowed() throws Exception {
+        // Given
+        givenBorrower(1L, 0);
+        givenBorrower(2L, 0);
+        givenBook(7L, null);
+        circulationService.start();
+        circulationService.borrowBook(1L, 7L);
+
+        // When
+        // Then
+        DuplicateActionException ex = assertThrows(
+                DuplicateActionException.class,
+                () -> circulationService.borrowBook(2L, 7L)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Book is already borrowed");
+    }
+
+    @Test
+    void borrowBookWillThrowBusinessExceptionWhenBorrowerIsAtTheLimit() throws Exception {
+        // Given
+        givenBorrower(1L, 5);
+        givenBook(7L, null);
+        circulationService.start();
+
+        // When
+        // Then
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> circulationService.borrowBook(1L, 7L)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Borrower has reached the limit of 5 active loans");
+    }
+
+    @Test
+    void returnBookWillThrowBusinessExceptionWhenBorrowedBySomeoneElse() throws Exception {
+        // Given
+        givenBorrower(2L, 0);
+        givenBook(7L, new ActiveLoan(42L, 1L, BORROWED_AT));
+        circulationService.start();
+
+        // When
+        // Then
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> circulationService.returnBook(2L, 7L)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("This book is currently borrowed by a different person");
+    }
+
+    @Test
+    void borrowBookWillThrowResourceNotFoundWhenBorrowerDoesNotExist() throws Exception {
+        // Given
+        when(store.findBorrower(1L)).thenReturn(Optional.empty());
+        circulationService.start();
+
+        // When
+        // Then
+        ResourceNotFoundException ex = assertThrows(
+                ResourceNotFoundException.class,
+                () -> circulationService.borrowBook(1L, 7L)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Borrower not found with id: 1");
+        verify(store, never()).findBook(anyLong());
+    }
+
+    @Test
+    void borrowBookWillThrowServiceUnavailableBeforeStart() {
+        // Given
+        // When
+        // Then
+        assertThrows(
+                ServiceUnavailableException.class,
+                () -> circulationService.borrowBook(1L, 7L)
+        );
+
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void startReplicatesRecordsLeftInTheJournal() throws Exception {
+        // Given
+        try (CirculationJournal journal = new CirculationJournal(properties.journalPath(),
+                properties.journalSize().toBytes())) {
+            journal.readAll();
+            journal.append(LoanEvent.Type.BORROWED, 42L, 7L, 1L, 1, BORROWED_AT);
+            journal.append(LoanEvent.Type.RETURNED, 42L, 7L, 1L, 0, BORROWED_AT.plusDays(3));
+            journal.force();
+        }
+
+        // When
+        circulationService.start();
+
+        // Then
+        List<JournalRecord> records = replicatedRecords();
+        assertThat(records).extracting(JournalRecord::type)
+                .containsExactly(LoanEvent.Type.BORROWED, LoanEvent.Type.RETURNED);
+
+        try (CirculationJournal journal = new CirculationJournal(properties.journalPath(),
+                properties.journalSize().toBytes())) {
+            assertThat(journal.readAll()).isEmpty();
+        }
+    }
+
+    @Test
+    void journalSlotsAreReusedOnceRecordsAreReplicated() throws Exception {
+        // Given
+        circulationService.destroy();
+        properties = new CirculationProperties(dir.resolve("small.journal"),
+                DataSize.ofBytes(CirculationJournal.RECORD_SIZE * 3L), true, 100, 10, Duration.ofSeconds(5),
+                Duration.ofMillis(2), 50);
+        circulationService = new JournaledCirculationService(store, loanLimits, properties,
+                mock(PlatformTransactionManager.class), eventPublisher);
+        givenBorrower(1L, 0);
+        givenBook(7L, null);
+        circulationService.start();
+
+        // When
+        for (int i = 1; i <= 10; i++) {
+            if (i % 2 == 1) {
+                circulationService.borrowBook(1L, 7L);
+            } else {
+                circulationService.returnBook(1L, 7L);
+            }
+            awaitReplicated(i);
+        }
+
+        // Then
+        try (CirculationJournal journal = new CirculationJournal(properties.journalPath(),
+                properties.journalSize().toBytes())) {
+            assertThat(journal.capacity()).isEqualTo(2);
+        }
+        verify(eventPublisher, times(10)).publishEvent(any(LoanEvent.class));
+    }
+
+    // Waits until the mocked store has been given this many records
+    private void awaitReplicated(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (replicatedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(replicatedCount()).isEqualTo(count);
+    }
+
+    private int replicatedCount() {
+        return mockingDetails(store).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("replicate"))
+                .mapToInt(invocation -> ((List<?>) invocation.getArgument(0)).size())
+                .sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<JournalRecord> replicatedRecords() {
+        ArgumentCaptor<List<JournalRecord>> records = ArgumentCaptor.forClass(List.class);
+        verify(store, timeout(2000).atLeastOnce()).replicate(records.capture());
+        return records.getAllValues().get(0);
+    }
+
+    private void givenBorrower(long id, int activeLoans) {
+        when(store.findBorrower(id)).thenReturn(Optional.of(new BorrowerState(id, "Reader " + id,
+                "reader" + id + "@example.com", BorrowerCategory.STANDARD, activeLoans)));
+    }
+
+    private void givenBook(long id, ActiveLoan activeLoan) {
+        when(store.findBook(id)).thenReturn(Optional.of(new BookState(id, "978-" + id, "Title " + id, "Author",
+                activeLoan)));
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.librarysystem.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanArchiverTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private LoanArchiver loanArchiver;
+
+    @BeforeEach
+    void setUp() {
+        loanArchiver = new LoanArchiver(jdbcTemplate, mock(PlatformTransactionManager.class),
+                Duration.ofDays(365), 2, Duration.ZERO);
+    }
+
+    @Test
+    void archiveMovesBatchesUntilABatchIsNotFull() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+
+        // When
+        loanArchiver.archive();
+
+        // Then
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class));
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT INTO loans_archive"), any(SqlParameterSource.class));
+        verify(jdbcTemplate, times(2)).update(startsWith("DELETE FROM loans"), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void archiveDoesNothingWhenNoLoanIsOldEnough() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of());
+
+        // When
+        loanArchiver.archive();
+
+        // Then
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void archiveStopsWhenLoansWereArchivedByAnotherInstance() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(jdbcTemplate.update(startsWith("INSERT INTO loans_archive"), any(SqlParameterSource.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry '1' for key 'PRIMARY'"));
+
+        // When
+        loanArchiver.archive();
+
+        // Then
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM loans"), any(SqlParameterSource.class));
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.librarysystem.service;
+
+import com.librarysystem.repository.BorrowerRepository;
+import com.librarysystem.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanColumnBackfillTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    private LoanColumnBackfill loanColumnBackfill;
+
+    @BeforeEach
+    void setUp() {
+        loanColumnBackfill = new LoanColumnBackfill(loanRepository, borrowerRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void backfillUpdatesMissingSnapshotsInIdRanges() {
+        // Given
+        long maxId = 5L + 2 * LoanColumnBackfill.BATCH_SIZE;
+        when(loanRepository.findMinIdWithoutSnapshot()).thenReturn(Optional.of(5L));
+        when(loanRepository.findMaxIdWithoutSnapshot()).thenReturn(Optional.of(maxId));
+        when(loanRepository.backfillSnapshots(anyLong(), anyLong())).thenReturn(1);
+
+        // When
+        loanColumnBackfill.backfill();
+
+        // Then
+        verify(loanRepository).backfillSnapshots(5L, 4L + LoanColumnBackfill.BATCH_SIZE);
+        verify(loanRepository).backfillSnapshots(5L + LoanColumnBackfill.BATCH_SIZE, 4L + 2 * LoanColumnBackfill.BATCH_SIZE);
+        verify(loanRepository).backfillSnapshots(maxId, maxId);
+        verify(loanRepository, times(3)).backfillSnapshots(anyLong(), anyLong());
+    }
+
+    @Test
+    void backfillSetsActiveBookIdOfActiveLoans() {
+        // Given
+        when(loanRepository.backfillActiveBookIds()).thenReturn(3);
+        when(loanRepository.findMinIdWithoutSnapshot()).thenReturn(Optional.empty());
+
+        // When
+        loanColumnBackfill.backfill();
+
+        // Then
+        verify(loanRepository).backfillActiveBookIds();
+    }
+
+    @Test
+    void backfillCountsActiveLoansAfterSettingActiveBookIds() {
+        // Given
+        when(loanRepository.findMinIdWithoutSnapshot()).thenReturn(Optional.empty());
+
+        // When
+        loanColumnBackfill.backfill();
+
+        // Then
+        InOrder inOrder = inOrder(loanRepository, borrowerRepository);
+        inOrder.verify(loanRepository).backfillActiveBookIds();
+        inOrder.verify(borrowerRepository).backfillActiveLoanCounts();
+    }
+
+    @Test
+    void backfillDoesNothingWhenAllLoansHaveSnapshots() {
+        // Given
+        when(loanRepository.findMinIdWithoutSnapshot()).thenReturn(Optional.empty());
+
+        // When
+        loanColumnBackfill.backfill();
+
+        // Then
+        verify(loanRepository, never()).findMaxIdWithoutSnapshot();
+        verify(loanRepository, never()).backfillSnapshots(anyLong(), anyLong());
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.LoanResponse;
+import com.librarysystem.entity.enums.LoanStatus;
+import com.librarysystem.exception.ResourceNotFoundException;
+import com.librarysystem.repository.BookRepository;
+import com.librarysystem.repository.BorrowerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanHistoryServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private LoanHistoryService loanHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        loanHistoryService = new LoanHistoryService(jdbcTemplate, borrowerRepository, bookRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getBorrowerLoansQueriesLoansAndArchive() {
+        // Given
+        Long borrowerId = 1L;
+        LoanResponse loan = LoanResponse.builder()
+                .id(1L)
+                .bookId(2L)
+                .borrowerId(borrowerId)
+                .status(LoanStatus.RETURNED)
+                .borrowedAt(LocalDateTime.now().minusYears(2))
+                .returnedAt(LocalDateTime.now().minusYears(2))
+                .build();
+
+        when(borrowerRepository.existsById(borrowerId)).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(loan));
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(21L);
+
+        // When
+        Page<LoanResponse> page = loanHistoryService.getBorrowerLoans(borrowerId, PageRequest.of(1, 20));
+
+        // Then
+        assertThat(page.getContent()).containsExactly(loan);
+        assertThat(page.getTotalElements()).isEqualTo(21L);
+        verify(jdbcTemplate).query(
+                argThat((String sql) -> sql.contains("FROM loans WHERE borrower_id")
+                        && sql.contains("UNION ALL")
+                        && sql.contains("FROM loans_archive WHERE borrower_id")),
+                argThat((SqlParameterSource params) -> Long.valueOf(20).equals(params.getValue("offset"))),
+                any(RowMapper.class));
+    }
+
+    @Test
+    void getBorrowerLoansWillThrowResourceNotFoundWhenBorrowerDoesNotExist() {
+        // Given
+        when(borrowerRepository.existsById(1L)).thenReturn(false);
+
+        // When
+        // Then
+        ResourceNotFoundException ex = assertThrows(
+                ResourceNotFoundException.class,
+                () -> loanHistoryService.getBorrowerLoans(1L, PageRequest.of(0, 20))
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Borrower not found with id: 1");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void getBookLoansWillThrowResourceNotFoundWhenBookDoesNotExist() {
+        // Given
+        when(bookRepository.existsById(1L)).thenReturn(false);
+
+        // When
+        // Then
+        ResourceNotFoundException ex = assertThrows(
+                ResourceNotFoundException.class,
+                () -> loanHistoryService.getBookLoans(1L, PageRequest.of(0, 20))
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("Book not found with id: 1");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+}
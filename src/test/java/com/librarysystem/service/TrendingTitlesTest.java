@@ -0,0 +1,142 @@
+package com.librarysystem.service;
+
+import com.librarysystem.dto.response.TrendingTitleResponse;
+import com.librarysystem.event.LoanEvent;
+import com.librarysystem.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrendingTitlesTest {
+
+    private MutableClock clock;
+
+    private TrendingTitles trendingTitles;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-03-02T10:00:00Z"));
+        trendingTitles = new TrendingTitles(10, clock);
+    }
+
+    @Test
+    void topReturnsMostBorrowedIsbnsFirst() {
+        // Given
+        borrow("978-1", 3);
+        borrow("978-2", 5);
+        borrow("978-3", 1);
+
+        // When
+        List<TrendingTitleResponse> top = trendingTitles.top(TrendingTitles.Window.HOUR, 2);
+
+        // Then
+        assertThat(top).extracting(TrendingTitleResponse::getIsbn).containsExactly("978-2", "978-1");
+        assertThat(top).extracting(TrendingTitleResponse::getBorrows).containsExactly(5L, 3L);
+        assertThat(top.get(0).getTitle()).isEqualTo("Title 978-2");
+    }
+
+    @Test
+    void topKeepsHeavyHittersWhenMoreIsbnsThanCapacityAreBorrowed() {
+        // Given
+        for (int i = 0; i < 1_000; i++) {
+            borrow("978-hot", 1);
+            borrow("978-cold-" + i, 1);
+        }
+
+        // When
+        List<TrendingTitleResponse> top = trendingTitles.top(TrendingTitles.Window.DAY, 1);
+
+        // Then
+        assertThat(top.get(0).getIsbn()).isEqualTo("978-hot");
+        assertThat(top.get(0).getBorrows()).isGreaterThanOrEqualTo(1_000L);
+    }
+
+    @Test
+    void topOnlyCountsBorrowsInsideTheWindow() {
+        // Given
+        borrow("978-old", 5);
+        clock.advance(Duration.ofHours(2));
+        borrow("978-new", 1);
+
+        // When
+        List<TrendingTitleResponse> lastHour = trendingTitles.top(TrendingTitles.Window.HOUR, 10);
+        List<TrendingTitleResponse> lastDay = trendingTitles.top(TrendingTitles.Window.DAY, 10);
+
+        // Then
+        assertThat(lastHour).extracting(TrendingTitleResponse::getIsbn).containsExactly("978-new");
+        assertThat(lastDay).extracting(TrendingTitleResponse::getIsbn).containsExactly("978-old", "978-new");
+    }
+
+    @Test
+    void returnsAreNotCounted() {
+        // Given
+        trendingTitles.onLoanEvent(event(LoanEvent.Type.RETURNED, "978-1"));
+
+        // When
+        List<TrendingTitleResponse> top = trendingTitles.top(TrendingTitles.Window.HOUR, 10);
+
+        // Then
+        assertThat(top).isEmpty();
+    }
+
+    @Test
+    void topWillThrowBusinessExceptionWhenNIsAboveCapacity() {
+        // When
+        // Then
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> trendingTitles.top(TrendingTitles.Window.WEEK, 11)
+        );
+
+        assertThat(ex.getMessage()).isEqualTo("n must be between 1 and 10");
+    }
+
+    private void borrow(String isbn, int times) {
+        for (int i = 0; i < times; i++) {
+            trendingTitles.onLoanEvent(event(LoanEvent.Type.BORROWED, isbn));
+        }
+    }
+
+    private static LoanEvent event(LoanEvent.Type type, String isbn) {
+        return new LoanEvent(type, 1L, 1L, isbn, "Title " + isbn, "Author", 1L, LocalDateTime.now());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.librarysystem.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate {@link StatementInspector} recording the SQL Hibernate prepares on the current thread, used to give
+ * a request a budget of statements so an added lazy load or N+1 fails the test instead of reaching production.
+ * <p>
+ * Register it with {@code spring.jpa.properties.hibernate.session_factory.statement_inspector} and wrap the
+ * request in {@link #expectAtMost}. MockMvc runs the request on the test thread, so scheduled jobs running
+ * meanwhile are not counted. Statements sent through {@code JdbcTemplate} bypass Hibernate and are not counted.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Runs {@code action} and fails if Hibernate prepared more than {@code max} statements during it, listing them.
+     */
+    public static <T> T expectAtMost(int max, Callable<T> action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            T result = action.call();
+            assertThat(statements)
+                    .as("SQL statements, at most %d expected", max)
+                    .hasSizeLessThanOrEqualTo(max);
+            return result;
+        } finally {
+            STATEMENTS.remove();
+        }
+    }
+
+}